@@ -0,0 +1,46 @@
+package cz.jeme.advancium;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.NamespacedKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the JSON generation of the {@link AdvancementLoader} for small and huge criteria sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AdvancementJsonBenchmark {
+    @Param({"1", "100", "10000"})
+    public int criteria;
+
+    private CustomAdvancement advancement;
+
+    @Setup
+    public void setup() {
+        Stubs.install();
+        // every criterion is required, so both the criteria and the requirements grow
+        final Set<Set<String>> requirements = IntStream.range(0, criteria)
+                .mapToObj(i -> Set.of("criterion_" + i))
+                .collect(Collectors.toUnmodifiableSet());
+        advancement = CustomAdvancement.advancement(new NamespacedKey("benchmark", "json_" + criteria))
+                .display(CustomAdvancementDisplay.display().title(Component.text("Benchmark")))
+                .requirements(requirements)
+                .buildAndBindToBukkit("minecraft:story/root", Stubs.plugin("json"));
+    }
+
+    @Benchmark
+    public String json() {
+        return AdvancementLoader.INSTANCE.json(advancement);
+    }
+
+    @Benchmark
+    public String hash() {
+        return AdvancementLoader.hash(AdvancementLoader.INSTANCE.json(advancement));
+    }
+}
@@ -0,0 +1,44 @@
+package cz.jeme.advancium;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the defensive copies of {@link CustomAdvancementRewardsImpl#loot()} and {@link CustomAdvancementDisplayImpl#icon()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CloningBenchmark {
+    @Param({"1", "10", "100"})
+    public int items;
+
+    private CustomAdvancementRewards rewards;
+    private CustomAdvancementDisplay display;
+
+    @Setup
+    public void setup() {
+        Stubs.install();
+        final CustomAdvancementRewards.Builder builder = CustomAdvancementRewards.rewards();
+        for (int i = 0; i < items; i++)
+            builder.addLoot(new StubItemStack(Material.DIAMOND, 1));
+        rewards = builder.build();
+        display = CustomAdvancementDisplay.display()
+                .icon(new StubItemStack(Material.DIAMOND, 1))
+                .build();
+    }
+
+    @Benchmark
+    public List<ItemStack> loot() {
+        return rewards.loot();
+    }
+
+    @Benchmark
+    public ItemStack icon() {
+        return display.icon();
+    }
+}
@@ -0,0 +1,89 @@
+package cz.jeme.advancium;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dispatch of an event by the {@link EventManager} while another thread keeps subscribing
+ * and unsubscribing a handler of an advancement.
+ * <p>
+ * Each dispatch checks that every stable handler ran exactly once and the churned handler at most once,
+ * a skipped or duplicated handler fails the benchmark.
+ * </p>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConcurrentSubscriptionBenchmark {
+    @Param({"1", "10", "100", "1000"})
+    public int subscribers;
+
+    private EventManager manager;
+    private CustomAdvancement churner;
+    private Stubs.Registration[] registrations;
+    private BenchmarkEvent event;
+
+    @Setup
+    public void setup() {
+        Stubs.install();
+        final Plugin plugin = Stubs.plugin("subscription_" + subscribers);
+        manager = EventManager.forPlugin(plugin);
+        for (int i = 0; i < subscribers; i++)
+            manager.subscribe(BenchmarkEvent.class, event -> event.stable++);
+        churner = CustomAdvancement.advancement(new NamespacedKey("benchmark", "subscription_" + subscribers))
+                .buildAndBindToBukkit("minecraft:story/root", plugin);
+        registrations = Stubs.registrations(plugin, BenchmarkEvent.class);
+        event = new BenchmarkEvent();
+    }
+
+    @TearDown
+    public void tearDown() {
+        churner.unload();
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public long dispatch() throws EventException {
+        final long stable = event.stable;
+        final long churned = event.churned;
+        Stubs.fire(registrations, event);
+        if (event.stable - stable != subscribers)
+            throw new IllegalStateException("Invoked " + (event.stable - stable) + " of " + subscribers + " stable handlers");
+        if (event.churned - churned > 1)
+            throw new IllegalStateException("Invoked the churned handler " + (event.churned - churned) + " times");
+        return event.stable;
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public void subscribe() {
+        manager.subscribe(BenchmarkEvent.class, EventPriority.NORMAL, churner, event -> event.churned++);
+        manager.unsubscribe(churner);
+    }
+
+    public static final class BenchmarkEvent extends Event {
+        private static final HandlerList HANDLERS = new HandlerList();
+
+        private long stable;
+        private long churned;
+
+        @Override
+        public @NotNull HandlerList getHandlers() {
+            return HANDLERS;
+        }
+
+        public static HandlerList getHandlerList() {
+            return HANDLERS;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package cz.jeme.advancium;
+
+import com.destroystokyo.paper.event.player.PlayerAdvancementCriterionGrantEvent;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.advancement.Advancement;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventException;
+import org.bukkit.plugin.Plugin;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the handling of a criterion grant of a custom advancement, from the Bukkit executors
+ * through the criterion and completion handlers to the reward delivery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CriterionGrantBenchmark {
+    /**
+     * Whether the grant completes the advancement, which runs the completion handlers and delivers the rewards.
+     */
+    @Param({"false", "true"})
+    public boolean done;
+
+    private Stubs.Registration[] registrations;
+    private PlayerAdvancementCriterionGrantEvent event;
+    private long handled;
+
+    @Setup
+    public void setup() {
+        Stubs.install();
+        final Plugin plugin = Stubs.plugin("grant_" + done);
+        final CustomAdvancement advancement = CustomAdvancement.advancement(new NamespacedKey("benchmark", "grant_" + done))
+                .rewards(CustomAdvancementRewards.rewards()
+                        .addLoot(new StubItemStack(Material.DIAMOND, 1))
+                        .addLoot(new StubItemStack(Material.EMERALD, 16)))
+                .onCriterionGranted((event, adv) -> handled++)
+                .onAdvancementCompleted((event, adv) -> handled++)
+                .buildAndBindToBukkit("minecraft:story/root", plugin);
+        registrations = Stubs.registrations(plugin, PlayerAdvancementCriterionGrantEvent.class);
+        final Advancement bukkit = advancement.asBukkit();
+        final Player player = Stubs.player(UUID.randomUUID(), done);
+        event = new PlayerAdvancementCriterionGrantEvent(player, bukkit, "dummy", Stubs.progress(bukkit, done));
+    }
+
+    @Benchmark
+    public long grant() throws EventException {
+        Stubs.fire(registrations, event);
+        return handled;
+    }
+}
@@ -0,0 +1,67 @@
+package cz.jeme.advancium;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dispatch of a single event by the {@link EventManager} to a varying number of handlers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventDispatchBenchmark {
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int subscribers;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private Stubs.Registration[] registrations;
+    private BenchmarkEvent event;
+
+    @Setup
+    public void setup() {
+        Stubs.install();
+        final Plugin plugin = Stubs.plugin("dispatch_" + subscribers);
+        final EventManager manager = EventManager.forPlugin(plugin);
+        for (int i = 0; i < subscribers; i++)
+            manager.subscribe(BenchmarkEvent.class, event -> event.handled++);
+        registrations = Stubs.registrations(plugin, BenchmarkEvent.class);
+        event = new BenchmarkEvent();
+        if (metrics) AdvancementMetrics.enable();
+        else AdvancementMetrics.disable();
+    }
+
+    @TearDown
+    public void tearDown() {
+        AdvancementMetrics.disable();
+        AdvancementMetrics.reset();
+    }
+
+    @Benchmark
+    public long dispatch() throws EventException {
+        Stubs.fire(registrations, event);
+        return event.handled;
+    }
+
+    public static final class BenchmarkEvent extends Event {
+        private static final HandlerList HANDLERS = new HandlerList();
+
+        private long handled;
+
+        @Override
+        public @NotNull HandlerList getHandlers() {
+            return HANDLERS;
+        }
+
+        public static HandlerList getHandlerList() {
+            return HANDLERS;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package cz.jeme.advancium;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.plugin.Plugin;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures preparing a large tab whose advancements share a few icons and descriptions,
+ * with and without the {@link SerializationCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializationCacheBenchmark {
+    private static final int ADVANCEMENTS = 2000;
+    private static final Material[] ICONS = {
+            Material.DIAMOND, Material.EMERALD, Material.GOLD_INGOT, Material.IRON_INGOT, Material.COPPER_INGOT,
+            Material.NETHERITE_INGOT, Material.COAL, Material.REDSTONE, Material.LAPIS_LAZULI, Material.QUARTZ,
+            Material.AMETHYST_SHARD, Material.STICK, Material.STRING, Material.FEATHER, Material.LEATHER,
+            Material.BOOK, Material.PAPER, Material.BONE, Material.ARROW, Material.BOW,
+            Material.WOODEN_PICKAXE, Material.STONE_PICKAXE, Material.IRON_PICKAXE, Material.GOLDEN_PICKAXE, Material.DIAMOND_PICKAXE,
+            Material.WHEAT, Material.CARROT, Material.POTATO, Material.BREAD, Material.APPLE
+    };
+    private static final Component[] DESCRIPTIONS = {
+            Component.translatable("advancements.benchmark.collect"),
+            Component.translatable("advancements.benchmark.craft"),
+            Component.translatable("advancements.benchmark.explore")
+    };
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private List<CustomAdvancement> advancements;
+
+    @Setup
+    public void setup() {
+        Stubs.install();
+        final Plugin plugin = Stubs.plugin("cache");
+        advancements = new ArrayList<>(ADVANCEMENTS);
+        for (int i = 0; i < ADVANCEMENTS; i++) {
+            advancements.add(CustomAdvancement.advancement(new NamespacedKey("benchmark", "cache_" + i))
+                    .display(CustomAdvancementDisplay.display()
+                            .icon(new StubItemStack(ICONS[i % ICONS.length], 1))
+                            .title(Component.text("Advancement " + i))
+                            .description(DESCRIPTIONS[i % DESCRIPTIONS.length]))
+                    .buildAndBindToBukkit("minecraft:story/root", plugin));
+        }
+    }
+
+    @Benchmark
+    public List<AdvancementLoader.Prepared> prepare() {
+        return AdvancementLoader.INSTANCE.prepare(advancements, cached ? new SerializationCache() : null);
+    }
+}
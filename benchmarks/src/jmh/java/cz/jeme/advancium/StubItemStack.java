@@ -0,0 +1,67 @@
+package cz.jeme.advancium;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An item stack without item meta, created by the item registry of the {@link Stubs}.
+ * <p>
+ * Cloning it is much cheaper than cloning a server item stack, so the cloning benchmarks
+ * measure the overhead added by the library rather than the cost of the copy itself.
+ * </p>
+ */
+final class StubItemStack extends ItemStack {
+    private final Material type;
+    private int amount;
+
+    StubItemStack(final Material type, final int amount) {
+        this.type = type;
+        this.amount = amount;
+    }
+
+    @Override
+    public Material getType() {
+        return type;
+    }
+
+    @Override
+    public int getAmount() {
+        return amount;
+    }
+
+    @Override
+    public void setAmount(final int amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public int getMaxStackSize() {
+        return 64;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return type == Material.AIR || amount <= 0;
+    }
+
+    @Override
+    public boolean isSimilar(final @Nullable ItemStack stack) {
+        return stack != null && stack.getType() == type;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object o) {
+        return o instanceof final StubItemStack stack && stack.type == type && stack.amount == amount;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + amount;
+    }
+
+    @Override
+    public StubItemStack clone() {
+        return new StubItemStack(type, amount);
+    }
+}
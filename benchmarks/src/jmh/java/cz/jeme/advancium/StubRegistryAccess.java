@@ -0,0 +1,26 @@
+package cz.jeme.advancium;
+
+import io.papermc.paper.registry.RegistryAccess;
+import io.papermc.paper.registry.RegistryKey;
+import org.bukkit.Keyed;
+import org.bukkit.Registry;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Provides the registries of the {@link Stubs}, loaded by the API as a service.
+ * <p>
+ * Needed because item stacks (including the default advancement icon) are created through the item registry.
+ * </p>
+ */
+public final class StubRegistryAccess implements RegistryAccess {
+    @Override
+    @Deprecated
+    public <T extends Keyed> @Nullable Registry<T> getRegistry(final Class<T> type) {
+        return Stubs.registry(null);
+    }
+
+    @Override
+    public <T extends Keyed> Registry<T> getRegistry(final RegistryKey<T> key) {
+        return Stubs.registry(key);
+    }
+}
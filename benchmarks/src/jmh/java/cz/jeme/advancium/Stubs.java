@@ -0,0 +1,209 @@
+package cz.jeme.advancium;
+
+import com.google.gson.JsonObject;
+import io.papermc.paper.registry.RegistryKey;
+import net.kyori.adventure.key.Key;
+import org.bukkit.*;
+import org.bukkit.advancement.Advancement;
+import org.bukkit.advancement.AdvancementProgress;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.ItemType;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+/**
+ * A stub of the Bukkit API, just enough of it for the library to run outside a server.
+ * <p>
+ * All objects are dynamic proxies. Methods without a specific behavior return zero, {@code false},
+ * an empty collection or another stub, so the benchmarks only measure the library itself.
+ * Listeners registered by the library are captured and called by {@link #fire(Registration[], Event)}.
+ * </p>
+ */
+final class Stubs {
+    private static final Logger LOGGER = Logger.getLogger("Advancium");
+    private static final List<Registration> REGISTRATIONS = new CopyOnWriteArrayList<>();
+    /**
+     * Returned by a stub behavior to fall back to the default value.
+     */
+    private static final Object DEFAULT = new Object();
+    private static boolean installed = false;
+
+    private Stubs() {
+        throw new AssertionError();
+    }
+
+    @FunctionalInterface
+    private interface Behavior {
+        @Nullable
+        Object invoke(final Method method, final Object[] args);
+    }
+
+    /**
+     * A listener registered by the library.
+     */
+    record Registration(Plugin plugin, Class<? extends Event> eventClass, EventPriority priority, Listener listener, EventExecutor executor) {
+    }
+
+    /**
+     * Installs the stub server, can be called repeatedly.
+     */
+    static synchronized void install() {
+        if (installed) return;
+        installed = true;
+        final PluginManager pluginManager = proxy(PluginManager.class, (method, args) -> {
+            if (!method.getName().equals("registerEvent")) return DEFAULT;
+            @SuppressWarnings("unchecked") final Class<? extends Event> eventClass = (Class<? extends Event>) args[0];
+            REGISTRATIONS.add(new Registration((Plugin) args[4], eventClass, (EventPriority) args[2], (Listener) args[1], (EventExecutor) args[3]));
+            return null;
+        });
+        @SuppressWarnings("deprecation") final UnsafeValues unsafe = proxy(UnsafeValues.class, (method, args) -> switch (method.getName()) {
+            case "serializeItemAsJson" -> {
+                final ItemStack item = (ItemStack) args[0];
+                final JsonObject json = new JsonObject();
+                json.addProperty("id", item.getType().getKey().asString());
+                json.addProperty("count", item.getAmount());
+                yield json;
+            }
+            case "loadAdvancement" -> advancement((NamespacedKey) args[0]);
+            default -> DEFAULT;
+        });
+        Bukkit.setServer(proxy(Server.class, (method, args) -> switch (method.getName()) {
+            case "getPluginManager" -> pluginManager;
+            case "getUnsafe" -> unsafe;
+            case "getLogger" -> LOGGER;
+            case "isPrimaryThread" -> true;
+            default -> DEFAULT;
+        }));
+    }
+
+    static Plugin plugin(final String name) {
+        return proxy(Plugin.class, (method, args) -> switch (method.getName()) {
+            case "getName" -> name;
+            case "getLogger" -> LOGGER;
+            case "isEnabled" -> true;
+            default -> DEFAULT;
+        });
+    }
+
+    static Player player(final UUID uuid, final boolean done) {
+        return proxy(Player.class, (method, args) -> switch (method.getName()) {
+            case "getUniqueId" -> uuid;
+            case "getName" -> "Player";
+            case "getAdvancementProgress" -> progress((Advancement) args[0], done);
+            default -> DEFAULT;
+        });
+    }
+
+    static Advancement advancement(final NamespacedKey key) {
+        return proxy(Advancement.class, (method, args) -> switch (method.getName()) {
+            case "getKey", "key" -> key;
+            default -> DEFAULT;
+        });
+    }
+
+    static AdvancementProgress progress(final Advancement advancement, final boolean done) {
+        return proxy(AdvancementProgress.class, (method, args) -> switch (method.getName()) {
+            case "getAdvancement" -> advancement;
+            case "isDone" -> done;
+            default -> DEFAULT;
+        });
+    }
+
+    /**
+     * Gets a registry of the {@link StubRegistryAccess}, the item registry creates {@link StubItemStack}s.
+     */
+    static <T> T registry(final @Nullable RegistryKey<?> key) {
+        final Behavior items = (method, args) -> switch (method.getName()) {
+            case "get", "getOrThrow" -> args.length == 1 && args[0] instanceof final Key k
+                    ? itemType(Objects.requireNonNull(Material.matchMaterial(k.value()), k.asString()))
+                    : DEFAULT;
+            default -> DEFAULT;
+        };
+        @SuppressWarnings("unchecked") final T registry = (T) proxy(Registry.class, key == RegistryKey.ITEM ? items : (method, args) -> DEFAULT);
+        return registry;
+    }
+
+    private static ItemType itemType(final Material material) {
+        return proxy(ItemType.class, (method, args) -> switch (method.getName()) {
+            case "createItemStack" -> new StubItemStack(material, args.length > 0 && args[0] instanceof final Integer amount ? amount : 1);
+            case "getKey", "key" -> material.getKey();
+            case "asMaterial" -> material;
+            case "getMaxStackSize" -> 64;
+            default -> DEFAULT;
+        });
+    }
+
+    /**
+     * Gets the captured listeners of a plugin applicable to an event class, ordered by priority.
+     */
+    static Registration[] registrations(final Plugin plugin, final Class<? extends Event> eventClass) {
+        return REGISTRATIONS.stream()
+                .filter(registration -> registration.plugin() == plugin)
+                .filter(registration -> registration.eventClass().isAssignableFrom(eventClass))
+                .sorted(Comparator.comparing(Registration::priority))
+                .toArray(Registration[]::new);
+    }
+
+    /**
+     * Calls the listeners the same way the plugin manager does.
+     */
+    static void fire(final Registration[] registrations, final Event event) throws EventException {
+        for (final Registration registration : registrations)
+            registration.executor().execute(registration.listener(), event);
+    }
+
+    private static <T> T proxy(final Class<T> type, final Behavior behavior) {
+        return type.cast(Proxy.newProxyInstance(
+                Stubs.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            if (method.getParameterCount() == 1) return proxy == args[0];
+                            break;
+                        case "hashCode":
+                            if (method.getParameterCount() == 0) return System.identityHashCode(proxy);
+                            break;
+                        case "toString":
+                            if (method.getParameterCount() == 0) return "Stub" + type.getSimpleName();
+                            break;
+                    }
+                    final Object result = behavior.invoke(method, args == null ? new Object[0] : args);
+                    return result == DEFAULT ? defaultValue(method.getReturnType()) : result;
+                }
+        ));
+    }
+
+    private static @Nullable Object defaultValue(final Class<?> type) {
+        if (type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0F;
+        if (type == double.class) return 0D;
+        if (type == String.class) return "stub";
+        if (type == Optional.class) return Optional.empty();
+        if (type == HashMap.class || type == Map.class) return new HashMap<>();
+        if (type == List.class || type == Collection.class || type == Iterable.class) return List.of();
+        if (type == Set.class) return Set.of();
+        if (type == Iterator.class) return Collections.emptyIterator();
+        if (type.isInterface()) return proxy(type, (method, args) -> DEFAULT);
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+package cz.jeme.advancium;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.NamespacedKey;
+import org.bukkit.plugin.Plugin;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a tab at startup, either advancement by advancement or collected in a {@link CustomAdvancementBatch}.
+ * <p>
+ * The stub server loads an advancement without any work, so this only measures the library,
+ * each advancement is still loaded to the server by a separate call in all modes.
+ * The {@code sequential} mode collects the tab in a batch, but prepares it on the calling thread,
+ * which shows how much of the batch speedup comes from preparing in parallel.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TabLoadBenchmark {
+    @Param({"10", "100", "1000"})
+    public int advancements;
+
+    @Param({"single", "batch", "sequential"})
+    public String mode;
+
+    private Plugin plugin;
+    private CustomAdvancementTab tab;
+
+    @Setup
+    public void setup() {
+        Stubs.install();
+        plugin = Stubs.plugin("load_" + advancements + "_" + mode);
+    }
+
+    @TearDown(Level.Invocation)
+    public void unload() {
+        tab.unload();
+    }
+
+    @Benchmark
+    public CustomAdvancementTab load() {
+        final CustomAdvancementTab.Builder builder = CustomAdvancementTab.tab(plugin)
+                .root(advancement("root"));
+        switch (mode) {
+            case "single" -> {
+                tab = builder.buildAndLoad();
+                bind(tab);
+            }
+            case "batch" -> tab = builder.buildAndLoad(this::bind);
+            case "sequential" -> {
+                final CustomAdvancementBatch batch = CustomAdvancementBatch.batch();
+                tab = builder.batch(batch).buildAndLoad();
+                bind(tab);
+                // what the batch does when loaded, without the parallel stream
+                for (final AdvancementLoader.Prepared prepared : AdvancementLoader.INSTANCE.prepare(batch.advancements(), new SerializationCache(), false))
+                    ((AbstractCustomAdvancement) prepared.advancement()).load(prepared);
+            }
+            default -> throw new IllegalArgumentException("Unknown mode: \"" + mode + "\"");
+        }
+        return tab;
+    }
+
+    /**
+     * Binds a chain of advancements to the tab, every advancement is the parent of the next one.
+     */
+    private void bind(final CustomAdvancementTab tab) {
+        CustomAdvancement parent = tab.root();
+        for (int i = 0; i < advancements; i++)
+            parent = advancement("advancement_" + i).buildAndBindTo(parent);
+    }
+
+    private CustomAdvancement.Builder advancement(final String name) {
+        return CustomAdvancement.advancement(new NamespacedKey("benchmark", "load_" + advancements + "_" + mode + "_" + name))
+                .display(CustomAdvancementDisplay.display().title(Component.text(name)));
+    }
+}
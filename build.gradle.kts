@@ -22,6 +22,11 @@ repositories {
 
 dependencies {
     compileOnly("io.papermc.paper:paper-api:1.21.4-R0.1-SNAPSHOT")
+
+    testImplementation(project(":testkit"))
+    testImplementation(platform("org.junit:junit-bom:5.11.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 val targetJavaVersion = 21
@@ -43,6 +48,12 @@ tasks.withType<JavaCompile> {
     }
 }
 
+tasks.test {
+    useJUnitPlatform()
+    // the library keeps the server it was first used with, every test class starts its own
+    forkEvery = 1
+}
+
 mavenPublishing {
     configure(
         JavaLibrary(
@@ -1 +1,3 @@
 rootProject.name = "Advancium"
+
+include("benchmarks", "testkit")
@@ -8,7 +8,6 @@ import org.bukkit.advancement.AdvancementProgress;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
 import org.bukkit.event.EventPriority;
-import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
@@ -16,6 +15,8 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
@@ -26,39 +27,183 @@ sealed abstract class AbstractCustomAdvancement implements CustomAdvancement per
     protected final CustomAdvancementRewards rewards;
     protected final Set<String> criteria;
     protected final Set<Set<String>> requirements;
-
-    private @Nullable Advancement bukkit;
-
-    protected AbstractCustomAdvancement(final Builder builder, final Plugin plugin) {
+    protected final @Nullable CustomAdvancementBatchImpl batch;
+    protected final List<ProgressCache.Counter> counters;
+    protected final ProgressCache progressCache;
+
+    private final List<AbstractCustomAdvancement> children = new CopyOnWriteArrayList<>();
+    // read from any thread, e.g. by batches loading asynchronously
+    private volatile @Nullable Advancement bukkit;
+    private volatile boolean unloaded = false;
+    // handlers of an advancement pending in a batch, subscribed by the batch all at once
+    private volatile @Nullable List<EventManager.Subscription> subscriptions;
+
+    protected AbstractCustomAdvancement(final Builder builder,
+                                        final Plugin plugin,
+                                        final @Nullable CustomAdvancementBatchImpl parentBatch) {
         this.plugin = plugin;
+        if (parentBatch != null && builder.batch != null && parentBatch != builder.batch)
+            throw new IllegalArgumentException("The parent advancement is pending in a different batch");
+        batch = parentBatch != null ? parentBatch : builder.batch;
 
         key = builder.key;
         display = builder.display;
         rewards = builder.rewards;
-        criteria = builder.criteria;
-        requirements = builder.requirements.stream()
-                .map(Collections::unmodifiableSet)
-                .collect(Collectors.toSet());
+        counters = List.copyOf(builder.counters.values());
+        if (counters.isEmpty()) {
+            criteria = orderedCriteria(builder.criteria);
+            requirements = orderedRequirements(builder.requirements);
+        } else {
+            // counters replace the default requirements
+            final Set<String> criteria = new HashSet<>(builder.requirementsSet ? builder.criteria : Set.of());
+            final List<Set<String>> requirements = new ArrayList<>(builder.requirementsSet ? builder.requirements : Set.of());
+            for (final ProgressCache.Counter counter : counters) {
+                for (final String criterion : counter.criteria()) {
+                    if (!criteria.add(criterion))
+                        throw new IllegalArgumentException("Duplicate criterion name: \"" + criterion + "\"");
+                    requirements.add(Set.of(criterion));
+                }
+            }
+            this.criteria = orderedCriteria(criteria);
+            this.requirements = orderedRequirements(requirements);
+        }
+        progressCache = new ProgressCache(this);
+    }
+
+    /**
+     * Copies the criteria into an unmodifiable set iterating them in their natural order.
+     * <p>
+     * The generated JSON, and thus its hash, must not depend on the iteration order of the provided sets,
+     * which may differ between runs.
+     * </p>
+     */
+    private static Set<String> orderedCriteria(final Collection<String> criteria) {
+        final Set<String> ordered = criteria.stream()
+                .sorted()
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return Collections.unmodifiableSet(ordered);
+    }
+
+    /**
+     * Copies the requirement groups into an unmodifiable set iterating them in a stable order,
+     * see {@link #orderedCriteria(Collection)}.
+     */
+    private static Set<Set<String>> orderedRequirements(final Collection<? extends Set<String>> requirements) {
+        final Set<Set<String>> ordered = requirements.stream()
+                .map(AbstractCustomAdvancement::orderedCriteria)
+                .sorted((first, second) -> Arrays.compare(first.toArray(String[]::new), second.toArray(String[]::new)))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return Collections.unmodifiableSet(ordered);
     }
 
     @ApiStatus.Internal
     void register(final Builder builder) {
-        builder.eventRegistrations.forEach(reg ->
-                EventManager.forPlugin(plugin).subscribe(
+        if (hasCustomParent()) ((AbstractCustomAdvancement) parent()).children.add(this);
+        // always obtained, the event manager takes care of unloading when the plugin is disabled
+        final EventManager eventManager = EventManager.forPlugin(plugin);
+        eventManager.trackProgress(progressCache);
+        final List<EventManager.Subscription> subscriptions = builder.eventRegistrations.stream()
+                .map(reg -> EventManager.Subscription.of(
                         reg.eventClass(),
                         reg.eventPriority(),
+                        this,
+                        true,
                         event -> {
                             @SuppressWarnings("unchecked") final BiConsumer<Event, CustomAdvancement> handler = (BiConsumer<Event, CustomAdvancement>) reg.handler();
                             handler.accept(event, this);
                         }
-                )
-        );
+                ))
+                .toList();
+
+        if (batch == null) {
+            eventManager.subscribeAll(subscriptions);
+            load();
+        } else {
+            this.subscriptions = subscriptions;
+            batch.add(this);
+        }
+    }
+
+    /**
+     * Gets the handlers of this advancement that are not subscribed yet, they are subscribed by the caller.
+     */
+    @ApiStatus.Internal
+    List<EventManager.Subscription> takeSubscriptions() {
+        final List<EventManager.Subscription> subscriptions = this.subscriptions;
+        this.subscriptions = null;
+        return subscriptions == null ? List.of() : subscriptions;
+    }
 
+    @ApiStatus.Internal
+    void load() {
+        if (unloaded) return; // unloaded while pending in a batch
         bukkit = AdvancementLoader.INSTANCE.load(this);
     }
 
+    /**
+     * Loads this advancement to the server using the JSON prepared by {@link AdvancementLoader#prepare(List)}.
+     */
+    @ApiStatus.Internal
+    void load(final AdvancementLoader.Prepared prepared) {
+        if (unloaded) return; // unloaded while being prepared
+        bukkit = AdvancementLoader.INSTANCE.apply(prepared);
+    }
+
+    @Override
+    public void unload() {
+        if (unloaded) return;
+        // children are always loaded after their parents, unload them first
+        final List<AbstractCustomAdvancement> tree = tree();
+        Collections.reverse(tree);
+        tree.forEach(AbstractCustomAdvancement::detach);
+        AdvancementLoader.INSTANCE.unload(tree);
+    }
+
+    /**
+     * Unsubscribes the handlers of this advancement and marks it as unloaded,
+     * without removing it from the server.
+     */
+    @ApiStatus.Internal
+    void detach() {
+        unloaded = true;
+        if (hasCustomParent()) ((AbstractCustomAdvancement) parent()).children.remove(this);
+        final EventManager eventManager = EventManager.forPluginIfPresent(plugin);
+        if (eventManager != null) eventManager.unsubscribe(this);
+        // an advancement reloaded under the same key starts with new handler times
+        Metrics.removeHandler(key);
+        bukkit = null;
+    }
+
+    @ApiStatus.Internal
+    boolean unloaded() {
+        return unloaded;
+    }
+
+    /**
+     * Gets this advancement and all its descendants, parents always precede their children.
+     */
+    @ApiStatus.Internal
+    List<AbstractCustomAdvancement> tree() {
+        final List<AbstractCustomAdvancement> tree = new ArrayList<>();
+        final Deque<AbstractCustomAdvancement> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            final AbstractCustomAdvancement advancement = stack.pop();
+            tree.add(advancement);
+            advancement.children.forEach(stack::push);
+        }
+        return tree;
+    }
+
+    @ApiStatus.Internal
+    @Nullable
+    CustomAdvancementBatchImpl pendingBatch() {
+        return batch == null || batch.applied() ? null : batch;
+    }
+
     @Override
     public Advancement asBukkit() {
+        if (unloaded) throw new IllegalStateException("This custom advancement has been unloaded");
         if (bukkit == null)
             bukkit = Objects.requireNonNull(
                     Bukkit.getAdvancement(key),
@@ -87,6 +232,86 @@ sealed abstract class AbstractCustomAdvancement implements CustomAdvancement per
         return player.getAdvancementProgress(asBukkit());
     }
 
+    @Override
+    public boolean isAwarded(final Player player, final String criterion) {
+        return progressCache.isAwarded(player, progressCache.index(criterion));
+    }
+
+    @Override
+    public boolean isDone(final Player player) {
+        return progressCache.isDone(player);
+    }
+
+    @Override
+    public boolean grant(final Player player, final String criterion) {
+        if (progressCache.isAwarded(player, progressCache.index(criterion))) return false;
+        final FlightEvents.Grant flightEvent = FlightEvents.grantEnabled() ? new FlightEvents.Grant() : null;
+        if (flightEvent != null) flightEvent.begin();
+        final boolean granted = progress(player).awardCriteria(criterion);
+        if (flightEvent != null) FlightEvents.commit(flightEvent, this, criterion, player.getName());
+        if (granted) progressCache.update(player.getUniqueId(), criterion, true);
+        return granted;
+    }
+
+    @Override
+    public boolean revoke(final Player player, final String criterion) {
+        if (!progressCache.isAwarded(player, progressCache.index(criterion))) return false;
+        final boolean revoked = progress(player).revokeCriteria(criterion);
+        progressCache.update(player.getUniqueId(), criterion, false);
+        return revoked;
+    }
+
+    @Override
+    public long counter(final Player player, final String counter) {
+        return progressCache.counter(player, progressCache.counterIndex(counter));
+    }
+
+    @Override
+    public long increment(final Player player, final String counter, final long amount) {
+        if (amount < 0) throw new IllegalArgumentException("The amount must not be negative");
+        return progressCache.increment(player, progressCache.counterIndex(counter), amount);
+    }
+
+    @Override
+    public void resetCounter(final Player player, final String counter) {
+        progressCache.reset(player, progressCache.counterIndex(counter));
+    }
+
+    @Override
+    public void grant(final Collection<? extends Player> players, final Collection<String> criteria) {
+        enqueue(players, criteria, true);
+    }
+
+    @Override
+    public void revoke(final Collection<? extends Player> players, final Collection<String> criteria) {
+        enqueue(players, criteria, false);
+    }
+
+    private void enqueue(final Collection<? extends Player> players, final Collection<String> criteria, final boolean grant) {
+        criteria.forEach(progressCache::index); // validate before queueing anything
+        final GrantQueue queue = GrantQueue.forPlugin(plugin);
+        for (final Player player : players)
+            for (final String criterion : criteria)
+                queue.enqueue(player.getUniqueId(), this, criterion, grant, null);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> grantAsync(final UUID player, final String criterion) {
+        return enqueueAsync(player, criterion, true);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> revokeAsync(final UUID player, final String criterion) {
+        return enqueueAsync(player, criterion, false);
+    }
+
+    private CompletableFuture<Boolean> enqueueAsync(final UUID player, final String criterion, final boolean grant) {
+        progressCache.index(criterion);
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        GrantQueue.forPlugin(plugin).enqueue(player, this, criterion, grant, future);
+        return future;
+    }
+
     @Override
     public @Unmodifiable Set<Set<String>> requirements() {
         return requirements;
@@ -110,6 +335,9 @@ sealed abstract class AbstractCustomAdvancement implements CustomAdvancement per
         private CustomAdvancementRewards rewards = CustomAdvancementRewards.empty();
         private @Unmodifiable Set<String> criteria = Set.of("dummy");
         private Set<Set<String>> requirements = Set.of(criteria);
+        private boolean requirementsSet = false;
+        private final Map<String, ProgressCache.Counter> counters = new LinkedHashMap<>();
+        private @Nullable CustomAdvancementBatchImpl batch;
 
         private final List<EventRegistration<? extends Event>> eventRegistrations = new ArrayList<>();
         private final List<BiConsumer<PlayerAdvancementCriterionGrantEvent, CustomAdvancement>> criterionGrantedHandlers = new ArrayList<>();
@@ -142,6 +370,26 @@ sealed abstract class AbstractCustomAdvancement implements CustomAdvancement per
                     .collect(Collectors.toSet());
             if (criteria.isEmpty()) throw new IllegalArgumentException("No criteria provided");
             this.requirements = requirements;
+            requirementsSet = true;
+            return this;
+        }
+
+        @Override
+        public CustomAdvancement.Builder counter(final String criterion, final long threshold, final int milestones) {
+            if (criterion.isBlank()) throw new IllegalArgumentException("Empty criterion name");
+            if (threshold <= 0) throw new IllegalArgumentException("The threshold must be positive");
+            if (milestones <= 0 || milestones > threshold)
+                throw new IllegalArgumentException("The number of milestones must be between 1 and the threshold");
+            if (counters.containsKey(criterion))
+                throw new IllegalArgumentException("Duplicate counter: \"" + criterion + "\"");
+            counters.put(criterion, ProgressCache.Counter.of(criterion, threshold, milestones));
+            return this;
+        }
+
+        @Override
+        public CustomAdvancement.Builder batch(final CustomAdvancementBatch batch) {
+            if (batch.loaded()) throw new IllegalArgumentException("This batch has already been loaded");
+            this.batch = (CustomAdvancementBatchImpl) batch;
             return this;
         }
 
@@ -167,20 +415,24 @@ sealed abstract class AbstractCustomAdvancement implements CustomAdvancement per
             return this;
         }
 
-        private void registerCriterionEvents() {
-            // Accessing loot directly
-            // If not done with enough care, this could mutate CustomAdvancementRewards!
-            final List<ItemStack> unsafeLootRewards = ((CustomAdvancementRewardsImpl) rewards).loot;
+        private void registerCriterionEvents(final CustomAdvancement advancement) {
+            // Accessing the prepared loot directly, it is never mutated
+            final RewardPlan plan = ((CustomAdvancementRewardsImpl) rewards).plan;
             if (
                     criterionGrantedHandlers.isEmpty() &&
                     advancementCompletedHandlers.isEmpty() &&
-                    unsafeLootRewards.isEmpty()
+                    plan.isEmpty()
             ) return; // Just a slight optimization
-            on(
-                    PlayerAdvancementCriterionGrantEvent.class,
-                    EventPriority.NORMAL,
-                    (event, advancement) -> {
-                        if (!event.getAdvancement().getKey().equals(key)) return;
+            final List<BiConsumer<PlayerAdvancementCriterionGrantEvent, CustomAdvancement>> criterionGrantedHandlers = List.copyOf(this.criterionGrantedHandlers);
+            final List<BiConsumer<PlayerAdvancementCriterionGrantEvent, CustomAdvancement>> advancementCompletedHandlers = List.copyOf(this.advancementCompletedHandlers);
+            final CustomAdvancementTabImpl managedTab = advancement.isRoot() && ((CustomAdvancementTabImpl) advancement.tab()).managesVisibility()
+                    ? (CustomAdvancementTabImpl) advancement.tab()
+                    : null;
+            EventManager.forPlugin(advancement.plugin()).subscribeCriterion(
+                    advancement,
+                    criterionGrantedHandlers.isEmpty() && advancementCompletedHandlers.isEmpty() ? null : event -> {
+                        // showing the tab is not an achievement of the player
+                        if (managedTab != null && managedTab.isVisibilityGrant(event.getPlayer())) return;
                         criterionGrantedHandlers.forEach(
                                 handler -> handler.accept(event, advancement)
                         );
@@ -188,19 +440,26 @@ sealed abstract class AbstractCustomAdvancement implements CustomAdvancement per
                         advancementCompletedHandlers.forEach(
                                 handler -> handler.accept(event, advancement)
                         );
-                        if (event.isCancelled()) return;
+                    },
+                    plan.isEmpty() ? null : event -> {
+                        if (event.isCancelled() || !event.getAdvancementProgress().isDone()) return;
+                        if (managedTab != null && managedTab.isVisibilityGrant(event.getPlayer())) return;
                         final Player player = event.getPlayer();
-                        final Collection<ItemStack> overflow = player.getInventory().addItem(
-                                unsafeLootRewards.toArray(new ItemStack[0])
-                        ).values();
-                        for (final ItemStack item : overflow)
-                            player.getWorld().dropItem(player.getLocation(), item);
+                        TaskScheduler.runForPlayer(
+                                advancement.plugin(),
+                                player,
+                                () -> plan.deliver(advancement, player),
+                                () -> advancement.plugin().getLogger().warning(
+                                        "Could not deliver the rewards of advancement \"" + advancement.key()
+                                        + "\" to " + player.getName() + ", the player left before they were delivered"
+                                )
+                        );
                     }
             );
         }
 
         private <T extends AbstractCustomAdvancement> @NotNull T buildAndLoad(final @NotNull T advancement) {
-            registerCriterionEvents();
+            registerCriterionEvents(advancement);
             advancement.register(this);
             return advancement;
         }
@@ -216,7 +475,8 @@ sealed abstract class AbstractCustomAdvancement implements CustomAdvancement per
         }
 
         @ApiStatus.Internal
-        CustomAdvancement buildRoot(final CustomAdvancementTab tab) {
+        CustomAdvancement buildRoot(final CustomAdvancementTab tab, final @Nullable CustomAdvancementBatch batch) {
+            if (batch != null) batch(batch);
             return buildAndLoad(new RootCustomAdvancement(this, tab));
         }
     }
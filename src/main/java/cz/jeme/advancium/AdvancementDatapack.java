@@ -0,0 +1,142 @@
+package cz.jeme.advancium;
+
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Reads and writes the datapacks exported by {@link CustomAdvancementBatch#loadAsDatapack(String)}.
+ */
+final class AdvancementDatapack {
+    private static final Pattern NAME_PATTERN = Pattern.compile("[a-z0-9_.-]+");
+    /**
+     * The file storing the hash of the definition the datapack was generated from.
+     * <p>
+     * It is written last, so an interrupted export is never considered up-to-date.
+     * </p>
+     */
+    private static final String HASH_FILE = "advancium.sha256";
+    /**
+     * The file storing the name of the plugin using the datapack.
+     */
+    private static final String OWNER_FILE = "advancium.owner";
+    // the datapacks used by each plugin since it was enabled, keyed by the plugin name
+    private static final Map<String, Set<Path>> USED = new ConcurrentHashMap<>();
+    private static final String PACK_META = """
+            {
+                "pack": {
+                    "description": "Custom advancements exported by Advancium",
+                    "pack_format": 61,
+                    "supported_formats": {
+                        "min_inclusive": 48,
+                        "max_inclusive": 2147483647
+                    }
+                }
+            }
+            """;
+
+    private AdvancementDatapack() {
+        throw new AssertionError();
+    }
+
+    public static Path directory(final String name) {
+        if (!NAME_PATTERN.matcher(name).matches())
+            throw new IllegalArgumentException("Invalid datapack name: \"" + name + "\"");
+        final Path datapacks = datapacks();
+        if (datapacks == null)
+            throw new IllegalStateException("Datapacks can be exported only after the worlds are loaded");
+        return datapacks.resolve(name);
+    }
+
+    private static @Nullable Path datapacks() {
+        final List<World> worlds = Bukkit.getWorlds();
+        return worlds.isEmpty() ? null : worlds.getFirst().getWorldFolder().toPath().resolve("datapacks");
+    }
+
+    public static @Nullable String readHash(final Path directory) {
+        return read(directory.resolve(HASH_FILE));
+    }
+
+    private static @Nullable String read(final Path file) {
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8).strip();
+        } catch (final IOException e) {
+            return null; // regenerated
+        }
+    }
+
+    /**
+     * Marks the datapack as used by the plugin, so it is kept when the plugin is disabled.
+     */
+    public static void use(final Plugin plugin, final Path directory) {
+        USED.computeIfAbsent(plugin.getName(), $ -> ConcurrentHashMap.newKeySet()).add(directory);
+        if (plugin.getName().equals(read(directory.resolve(OWNER_FILE)))) return;
+        try {
+            Files.writeString(directory.resolve(OWNER_FILE), plugin.getName(), StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to export datapack: \"" + directory + "\"", e);
+        }
+    }
+
+    /**
+     * Deletes the datapacks of the plugin it has not used since it was enabled,
+     * they were exported for batches that no longer exist.
+     */
+    public static void deleteUnused(final Plugin plugin) {
+        final Set<Path> used = USED.remove(plugin.getName());
+        final Path datapacks = datapacks();
+        if (datapacks == null || !Files.isDirectory(datapacks)) return;
+        try (final Stream<Path> directories = Files.list(datapacks)) {
+            for (final Path directory : directories.toList()) {
+                if (used != null && used.contains(directory)) continue;
+                if (plugin.getName().equals(read(directory.resolve(OWNER_FILE)))) delete(directory);
+            }
+        } catch (final IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not delete unused advancement datapacks", e);
+        }
+    }
+
+    public static void write(final Path directory, final Map<NamespacedKey, String> jsons, final String hash) {
+        try {
+            delete(directory);
+            Files.createDirectories(directory);
+            Files.writeString(directory.resolve("pack.mcmeta"), PACK_META, StandardCharsets.UTF_8);
+            final Path data = directory.resolve("data");
+            for (final Map.Entry<NamespacedKey, String> entry : jsons.entrySet()) {
+                final NamespacedKey key = entry.getKey();
+                final Path file = data.resolve(key.getNamespace())
+                        .resolve("advancement")
+                        .resolve(key.getKey() + ".json");
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, entry.getValue(), StandardCharsets.UTF_8);
+            }
+            Files.writeString(directory.resolve(HASH_FILE), hash, StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to export datapack: \"" + directory + "\"", e);
+        }
+    }
+
+    private static void delete(final Path directory) throws IOException {
+        if (!Files.exists(directory)) return;
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+}
@@ -1,93 +1,265 @@
 package cz.jeme.advancium;
 
-import com.google.gson.Gson;
-import net.kyori.adventure.text.serializer.json.JSONComponentSerializer;
 import org.bukkit.Bukkit;
 import org.bukkit.NamespacedKey;
 import org.bukkit.UnsafeValues;
 import org.bukkit.advancement.Advancement;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
 enum AdvancementLoader {
     INSTANCE;
 
+    /**
+     * The smallest number of advancements prepared in parallel, smaller batches are not worth the hand-off.
+     */
+    private static final int PARALLEL_THRESHOLD = 16;
+
     @SuppressWarnings("deprecation")
     private final UnsafeValues unsafe = Bukkit.getUnsafe();
-    private final JSONComponentSerializer serializer = JSONComponentSerializer.json();
-    private final Gson gson = new Gson();
+    // the serializer reuses its buffers, prepared advancements are serialized on multiple threads
+    private final ThreadLocal<AdvancementSerializer> serializer = ThreadLocal.withInitial(AdvancementSerializer::new);
+    // guarded by this, advancements may be loaded and unloaded from any thread
+    private final Map<NamespacedKey, Loaded> loaded = new LinkedHashMap<>();
 
-    public Advancement load(final CustomAdvancement advancement) {
+    /**
+     * An advancement currently loaded to the server together with the hash of its generated JSON.
+     */
+    private record Loaded(CustomAdvancement advancement, String hash) {
+    }
 
-        final boolean root = advancement.isRoot();
+    /**
+     * An advancement with its generated JSON and the hash of the JSON, ready to be loaded to the server.
+     */
+    record Prepared(CustomAdvancement advancement, String json, String hash) {
+    }
 
-        final CustomAdvancementDisplay display = advancement.display();
-        final CustomAdvancementRewards rewards = advancement.rewards();
+    public String json(final CustomAdvancement advancement) {
+        return serializer.get().serialize(advancement);
+    }
+
+    /**
+     * Generates the JSON of the advancement and hashes it, may be called from any thread.
+     */
+    public Prepared prepare(final CustomAdvancement advancement) {
+        return prepare(advancement, null);
+    }
 
+    private Prepared prepare(final CustomAdvancement advancement, final @Nullable SerializationCache cache) {
+        final String json;
         try {
-            final String criteria = gson.toJson(
-                    advancement.criteria().stream()
-                            .collect(Collectors.toMap(
-                                    key -> key,
-                                    key -> Map.of("trigger", "minecraft:impossible")
-                            ))
-            );
-            final String requirements = gson.toJson(advancement.requirements());
+            json = serializer.get().serialize(advancement, cache);
+        } catch (final Exception e) {
+            throw new RuntimeException("Failed to load advancement: \"" + advancement.key() + "\"", e);
+        }
+        return new Prepared(advancement, json, hash(json));
+    }
 
-            final String recipes = gson.toJson(
-                    rewards.recipeKeys().stream().map(NamespacedKey::asString).toList()
-            );
+    /**
+     * Prepares the advancements in parallel on the common {@link java.util.concurrent.ForkJoinPool},
+     * may be called from any thread.
+     *
+     * @return the prepared advancements in the order of the provided advancements
+     */
+    public List<Prepared> prepare(final List<? extends CustomAdvancement> advancements) {
+        return prepare(advancements, new SerializationCache());
+    }
 
-            final String loot = gson.toJson(
-                    rewards.lootTableKeys().stream().map(NamespacedKey::asString).toList()
-            );
+    /**
+     * Prepares the advancements in parallel, sharing the serialized icons and components
+     * through the provided cache if any.
+     */
+    List<Prepared> prepare(final List<? extends CustomAdvancement> advancements, final @Nullable SerializationCache cache) {
+        return prepare(advancements, cache, advancements.size() >= PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Prepares the advancements either in parallel or one after another on the calling thread.
+     */
+    List<Prepared> prepare(final List<? extends CustomAdvancement> advancements,
+                           final @Nullable SerializationCache cache,
+                           final boolean parallel) {
+        return (parallel ? advancements.parallelStream() : advancements.stream())
+                .<Prepared>map(advancement -> prepare(advancement, cache))
+                .toList();
+    }
+
+    public Advancement load(final CustomAdvancement advancement) {
+        return apply(prepare(advancement));
+    }
 
-            final String json = """
-                    {
-                        "parent": %s,
-                        "display": {
-                            "icon": %s,
-                            "title": %s,
-                            "description": %s,
-                            "frame": "%s",
-                            "background": "%s",
-                            "show_toast": %b,
-                            "announce_to_chat": %b,
-                            "hidden": %b
-                        },
-                        "criteria": %s,
-                        "requirements": %s,
-                        "rewards": {
-                            "experience": %d,
-                            "recipes": %s,
-                            "loot": %s
-                        }
-                    }
-                    """
-                    .formatted(
-                            root ? null : '"' + advancement.parentKey().asString() + '"',
-                            unsafe.serializeItemAsJson(display.icon()).toString(),
-                            serializer.serialize(display.title()),
-                            serializer.serialize(display.description()),
-                            display.frame().id(),
-                            root ? advancement.tab().background() : null,
-                            display.showToast(),
-                            display.announceToChat(),
-                            display.hidden(),
-                            criteria,
-                            requirements,
-                            rewards.experience(),
-                            recipes,
-                            loot
-                    );
-
-            return unsafe.loadAdvancement(
+    /**
+     * Loads the prepared advancement to the server, must be called on the main thread.
+     */
+    public Advancement apply(final Prepared prepared) {
+        return load(prepared.advancement(), prepared.json(), prepared.hash());
+    }
+
+    private synchronized Advancement load(final CustomAdvancement advancement, final String json, final String hash) {
+        final long start = Metrics.enabled() ? System.nanoTime() : 0;
+        final FlightEvents.Load flightEvent = FlightEvents.loadEnabled() ? new FlightEvents.Load() : null;
+        if (flightEvent != null) flightEvent.begin();
+        try {
+            final Advancement bukkit = unsafe.loadAdvancement(
                     advancement.key(),
                     json
             );
+            loaded.put(advancement.key(), new Loaded(advancement, hash));
+            if (flightEvent != null) FlightEvents.commit(flightEvent, advancement);
+            if (start != 0) Metrics.LOADS.record(System.nanoTime() - start);
+            return bukkit;
         } catch (final Exception e) {
             throw new RuntimeException("Failed to load advancement: \"" + advancement.key() + "\"", e);
         }
     }
+
+    /**
+     * Loads the provided advancements in place of the previous ones.
+     * <p>
+     * Advancements whose generated JSON did not change keep their server advancement (and thus player progress),
+     * changed advancements (and their descendants) are replaced and the remaining previous advancements are removed.
+     * </p>
+     *
+     * @param advancements the new advancements, parents must precede their children
+     * @param previous     the previously loaded advancements, parents must precede their children
+     */
+    @SuppressWarnings("deprecation")
+    public synchronized void reload(final List<? extends AbstractCustomAdvancement> advancements,
+                                    final List<? extends AbstractCustomAdvancement> previous) {
+        final Set<CustomAdvancement> previousSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        previousSet.addAll(previous);
+        final Map<NamespacedKey, Prepared> prepared = new HashMap<>();
+        final Set<NamespacedKey> changed = new HashSet<>();
+        for (final Prepared entry : prepare(advancements)) {
+            final CustomAdvancement advancement = entry.advancement();
+            final NamespacedKey key = advancement.key();
+            final String hash = entry.hash();
+            prepared.put(key, entry);
+            final Loaded current = loaded.get(key);
+            if (current == null ||
+                !previousSet.contains(current.advancement()) ||
+                !current.hash().equals(hash) ||
+                // removing an advancement from the server removes its whole subtree
+                advancement.hasCustomParent() && changed.contains(advancement.parentKey()))
+                changed.add(key);
+        }
+
+        final List<? extends AbstractCustomAdvancement> reversed = new ArrayList<>(previous);
+        Collections.reverse(reversed);
+        for (final AbstractCustomAdvancement advancement : reversed) {
+            advancement.detach();
+            final NamespacedKey key = advancement.key();
+            final Loaded current = loaded.get(key);
+            if (current == null || current.advancement() != advancement) continue;
+            if (changed.contains(key) || !prepared.containsKey(key)) {
+                loaded.remove(key);
+                unsafe.removeAdvancement(key);
+            }
+        }
+
+        for (final AbstractCustomAdvancement advancement : advancements) {
+            final NamespacedKey key = advancement.key();
+            if (changed.contains(key)) apply(prepared.get(key));
+            else loaded.put(key, new Loaded(advancement, prepared.get(key).hash()));
+        }
+    }
+
+    /**
+     * Binds the provided advancements to the advancements loaded natively from an up-to-date datapack,
+     * or exports the datapack again and loads the advancements at runtime if it is missing or outdated.
+     *
+     * @param advancements the advancements, parents must precede their children
+     * @param directory    the directory of the datapack
+     */
+    @SuppressWarnings("deprecation")
+    public synchronized void loadFromDatapack(final List<? extends AbstractCustomAdvancement> advancements, final Path directory) {
+        final List<Prepared> prepared = prepare(advancements);
+        final Map<NamespacedKey, String> jsons = new LinkedHashMap<>();
+        final StringBuilder definition = new StringBuilder();
+        for (final Prepared entry : prepared) {
+            final NamespacedKey key = entry.advancement().key();
+            jsons.put(key, entry.json());
+            definition.append(key.asString()).append('\n').append(entry.hash()).append('\n');
+        }
+        final String definitionHash = hash(definition.toString());
+
+        if (definitionHash.equals(AdvancementDatapack.readHash(directory)) &&
+            advancements.stream().allMatch(advancement -> Bukkit.getAdvancement(advancement.key()) != null)) {
+            // the server has already loaded the advancements from the datapack
+            for (final Prepared entry : prepared)
+                loaded.put(entry.advancement().key(), new Loaded(entry.advancement(), entry.hash()));
+            if (!advancements.isEmpty()) AdvancementDatapack.use(advancements.getFirst().plugin(), directory);
+            return;
+        }
+
+        // loaded natively on the next start
+        AdvancementDatapack.write(directory, jsons, definitionHash);
+        if (!advancements.isEmpty()) AdvancementDatapack.use(advancements.getFirst().plugin(), directory);
+
+        final List<? extends AbstractCustomAdvancement> reversed = new ArrayList<>(advancements);
+        Collections.reverse(reversed);
+        for (final AbstractCustomAdvancement advancement : reversed) {
+            // loaded from an outdated version of the datapack
+            final NamespacedKey key = advancement.key();
+            if (!loaded.containsKey(key) && Bukkit.getAdvancement(key) != null) unsafe.removeAdvancement(key);
+        }
+        prepared.forEach(this::apply);
+    }
+
+    /**
+     * Removes the provided detached advancements from the server in a single pass.
+     * <p>
+     * Advancements whose key has been taken over by a reloaded advancement are skipped.
+     * </p>
+     *
+     * @param advancements the advancements, children must precede their parents
+     */
+    @SuppressWarnings("deprecation")
+    public synchronized void unload(final List<? extends CustomAdvancement> advancements) {
+        for (final CustomAdvancement advancement : advancements) {
+            final NamespacedKey key = advancement.key();
+            final Loaded current = loaded.get(key);
+            if (current == null || current.advancement() != advancement) continue;
+            loaded.remove(key);
+            unsafe.removeAdvancement(key);
+        }
+    }
+
+    /**
+     * Detaches all advancements of the plugin and removes them from the server.
+     * <p>
+     * While the server is stopping, the advancements are only detached. The server saves the progress
+     * of its players after disabling the plugins and would drop the progress of removed advancements.
+     * </p>
+     */
+    public synchronized void unload(final Plugin plugin) {
+        final List<AbstractCustomAdvancement> advancements = new ArrayList<>();
+        for (final Loaded current : loaded.values())
+            if (current.advancement().plugin() == plugin) advancements.add((AbstractCustomAdvancement) current.advancement());
+        // children are always loaded after their parents, unload them first
+        Collections.reverse(advancements);
+        advancements.forEach(AbstractCustomAdvancement::detach);
+        if (!Bukkit.isStopping()) {
+            unload(advancements);
+            return;
+        }
+        for (final AbstractCustomAdvancement advancement : advancements)
+            loaded.remove(advancement.key());
+    }
+
+    static String hash(final String json) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8))
+            );
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
 }
@@ -0,0 +1,285 @@
+package cz.jeme.advancium;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents a snapshot of the runtime metrics of the library.
+ * <p>
+ * Metrics are disabled by default. While disabled, the library only checks a single flag
+ * on its hot paths, so the overhead is negligible. While enabled, the library counts dispatched events
+ * and measures the time of advancement loads, event handlers and reward deliveries.
+ * It also counts how often the JSON of icons and components is reused while loading advancements.
+ * The metrics are shared by all plugins using the library.
+ * </p>
+ * Example:
+ * <pre>{@code
+ * AdvancementMetrics.enable();
+ * // ...
+ * AdvancementMetrics metrics = AdvancementMetrics.snapshot();
+ * metrics.handlers().forEach((key, timer) ->
+ *     logger.info(key + ": " + timer.mean().toNanos() + " ns, p99 " + timer.percentile(0.99).toNanos() + " ns"));
+ * }</pre>
+ */
+public sealed interface AdvancementMetrics permits AdvancementMetricsImpl {
+    /**
+     * Enables collecting the metrics.
+     * <p>
+     * Collected metrics are kept, use {@link #reset()} to clear them.
+     * </p>
+     */
+    static void enable() {
+        Metrics.enabled(true);
+    }
+
+    /**
+     * Disables collecting the metrics.
+     * <p>
+     * Collected metrics are kept until {@link #reset()} is called.
+     * </p>
+     */
+    static void disable() {
+        Metrics.enabled(false);
+    }
+
+    /**
+     * Checks whether the metrics are being collected.
+     *
+     * @return {@code true} if the metrics are enabled, otherwise {@code false}
+     */
+    static boolean enabled() {
+        return Metrics.enabled();
+    }
+
+    /**
+     * Clears all collected metrics and starts a new {@link #period()}.
+     */
+    static void reset() {
+        Metrics.reset();
+    }
+
+    /**
+     * Takes a snapshot of the collected metrics.
+     *
+     * @return the snapshot
+     */
+    static AdvancementMetrics snapshot() {
+        return Metrics.snapshot();
+    }
+
+    /**
+     * Gets the time elapsed between the last {@link #reset()} (or the first use of the library) and this snapshot.
+     *
+     * @return the period covered by this snapshot
+     */
+    Duration period();
+
+    /**
+     * Gets the dispatch counters of each event handler bucket.
+     * <p>
+     * The library registers one Bukkit listener per plugin, event class and priority,
+     * which dispatches the event to all handlers subscribed to it.
+     * </p>
+     *
+     * @return an unmodifiable {@link List} of the buckets
+     */
+    @Unmodifiable
+    List<Bucket> buckets();
+
+    /**
+     * Gets the time spent loading advancements to the server.
+     *
+     * @return the timer of advancement loads
+     */
+    Timer loads();
+
+    /**
+     * Gets the time spent in the event handlers of each advancement.
+     * <p>
+     * Includes the handlers added using {@link CustomAdvancement.Builder#on(Class, EventPriority, java.util.function.BiConsumer)},
+     * {@link CustomAdvancement.Builder#onCriterionGranted(java.util.function.BiConsumer)}
+     * and {@link CustomAdvancement.Builder#onAdvancementCompleted(java.util.function.BiConsumer)}.
+     * </p>
+     *
+     * @return an unmodifiable {@link Map} of the handler timers by advancement key
+     */
+    @Unmodifiable
+    Map<NamespacedKey, Timer> handlers();
+
+    /**
+     * Gets the number of criteria of custom advancements granted to players.
+     *
+     * @return the number of granted criteria
+     */
+    long grants();
+
+    /**
+     * Gets the average number of criteria of custom advancements granted per second during the {@link #period()}.
+     *
+     * @return the number of granted criteria per second
+     */
+    default double grantsPerSecond() {
+        final long nanos = period().toNanos();
+        return nanos == 0 ? 0 : grants() * 1e9 / nanos;
+    }
+
+    /**
+     * Gets the time spent delivering loot rewards to players.
+     *
+     * @return the timer of reward deliveries
+     */
+    Timer rewards();
+
+    /**
+     * Gets the usage of the cache sharing the serialized icons, titles and descriptions
+     * between the advancements loaded together in a batch.
+     * <p>
+     * Every hit is an item or a component that did not have to be serialized again.
+     * </p>
+     *
+     * @return the serialization cache counters
+     */
+    Cache serializationCache();
+
+    /**
+     * Dispatch counters of a single event handler bucket.
+     *
+     * @param plugin             the name of the plugin that owns the bucket
+     * @param eventClass         the event class the bucket listens to
+     * @param priority           the priority the bucket listens at
+     * @param events             the number of events dispatched
+     * @param handlerInvocations the number of handler invocations
+     */
+    record Bucket(String plugin,
+                  Class<? extends Event> eventClass,
+                  EventPriority priority,
+                  long events,
+                  long handlerInvocations) {
+    }
+
+    /**
+     * Usage counters of a cache.
+     *
+     * @param hits   the number of lookups served from the cache
+     * @param misses the number of lookups that had to compute the value
+     */
+    record Cache(long hits, long misses) {
+        /**
+         * Gets the ratio of the lookups served from the cache.
+         *
+         * @return the hit ratio from {@code 0} to {@code 1}, zero if there were no lookups
+         */
+        public double hitRatio() {
+            final long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * Latency statistics of a measured operation.
+     * <p>
+     * The histogram has 64 buckets, the bucket {@code i} counts the durations
+     * from {@code 2^i} (inclusive) to {@code 2^(i+1)} (exclusive) nanoseconds.
+     * </p>
+     *
+     * @param count      the number of measured operations
+     * @param totalNanos the total time of the operations in nanoseconds
+     * @param maxNanos   the time of the longest operation in nanoseconds
+     * @param histogram  the histogram of the operation times, copied on construction and access
+     */
+    record Timer(long count, long totalNanos, long maxNanos, long[] histogram) {
+        public Timer {
+            histogram = histogram.clone();
+        }
+
+        /**
+         * Gets the histogram of the operation times.
+         *
+         * @return a copy of the histogram
+         */
+        @Override
+        public long[] histogram() {
+            return histogram.clone();
+        }
+
+        /**
+         * Gets the total time of the operations.
+         *
+         * @return the total time
+         */
+        public Duration total() {
+            return Duration.ofNanos(totalNanos);
+        }
+
+        /**
+         * Gets the mean time of an operation.
+         *
+         * @return the mean time, zero if no operation was measured
+         */
+        public Duration mean() {
+            return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos / count);
+        }
+
+        /**
+         * Gets the time of the longest operation.
+         *
+         * @return the maximum time
+         */
+        public Duration max() {
+            return Duration.ofNanos(maxNanos);
+        }
+
+        /**
+         * Gets an upper bound of a percentile of the operation times.
+         * <p>
+         * The result is the upper bound of the histogram bucket containing the percentile,
+         * so it is at most twice the exact value.
+         * </p>
+         *
+         * @param percentile the percentile from {@code 0} to {@code 1}
+         * @return the upper bound of the percentile, zero if no operation was measured
+         * @throws IllegalArgumentException if the percentile is out of range
+         */
+        public Duration percentile(final double percentile) {
+            if (percentile < 0 || percentile > 1)
+                throw new IllegalArgumentException("The percentile must be between 0 and 1");
+            final long total = Arrays.stream(histogram).sum();
+            if (total == 0) return Duration.ZERO;
+            final long rank = Math.max(1, (long) Math.ceil(percentile * total));
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= rank) return Duration.ofNanos(Math.min(maxNanos, i >= 62 ? Long.MAX_VALUE : (1L << i + 1) - 1));
+            }
+            return max();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof final Timer timer &&
+                   count == timer.count &&
+                   totalNanos == timer.totalNanos &&
+                   maxNanos == timer.maxNanos &&
+                   Arrays.equals(histogram, timer.histogram);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hash(count, totalNanos, maxNanos) + Arrays.hashCode(histogram);
+        }
+
+        @Override
+        public String toString() {
+            return "Timer[count=" + count + ", totalNanos=" + totalNanos + ", maxNanos=" + maxNanos
+                   + ", histogram=" + Arrays.toString(histogram) + "]";
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package cz.jeme.advancium;
+
+import org.bukkit.NamespacedKey;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+record AdvancementMetricsImpl(Duration period,
+                              @Unmodifiable List<Bucket> buckets,
+                              Timer loads,
+                              @Unmodifiable Map<NamespacedKey, Timer> handlers,
+                              long grants,
+                              Timer rewards,
+                              Cache serializationCache) implements AdvancementMetrics {
+}
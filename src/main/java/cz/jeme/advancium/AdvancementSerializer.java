@@ -0,0 +1,167 @@
+package cz.jeme.advancium;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonWriter;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.json.JSONComponentSerializer;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.UnsafeValues;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates the JSON of custom advancements.
+ * <p>
+ * All JSON is streamed into a single reusable buffer, so apart from the serialized icon
+ * and components, no intermediate strings or collections are created. The output is the same as the one
+ * the loader produced with {@link String#formatted(Object...)} and {@link com.google.gson.Gson#toJson(Object)}.
+ * </p>
+ * Instances are not thread-safe.
+ */
+final class AdvancementSerializer {
+    /**
+     * The criterion definition shared by all criteria, they are granted by the library only.
+     */
+    private static final String IMPOSSIBLE_TRIGGER = "{\"trigger\":\"minecraft:impossible\"}";
+
+    @SuppressWarnings("deprecation")
+    private final UnsafeValues unsafe = Bukkit.getUnsafe();
+    private final JSONComponentSerializer componentSerializer = JSONComponentSerializer.json();
+    private final StringBuilder buffer = new StringBuilder(1024);
+    private final JsonWriter writer = new JsonWriter(new BufferWriter(buffer));
+
+    AdvancementSerializer() {
+        // multiple top-level values are written into one buffer
+        writer.setStrictness(Strictness.LENIENT);
+        // same escaping as Gson#toJson
+        writer.setHtmlSafe(true);
+    }
+
+    public String serialize(final CustomAdvancement advancement) {
+        return serialize(advancement, null);
+    }
+
+    /**
+     * Generates the JSON of the advancement, taking the serialized icon and components from the cache if provided.
+     */
+    public String serialize(final CustomAdvancement advancement, final @Nullable SerializationCache cache) {
+        final boolean root = advancement.isRoot();
+        // the root of a tab with a visibility condition is granted every time the tab is shown
+        final boolean managed = root && ((CustomAdvancementTabImpl) advancement.tab()).managesVisibility();
+
+        final CustomAdvancementDisplayImpl display = (CustomAdvancementDisplayImpl) advancement.display();
+        final CustomAdvancementRewards rewards = advancement.rewards();
+
+        buffer.setLength(0);
+        try {
+            buffer.append("{\n    \"parent\": ");
+            if (root) buffer.append("null");
+            else buffer.append('"').append(advancement.parentKey().asString()).append('"');
+            buffer.append(",\n    \"display\": {\n        \"icon\": ")
+                    .append(cache == null ? icon(display.rawIcon()) : cache.icon(display.rawIcon(), this::icon))
+                    .append(",\n        \"title\": ")
+                    .append(cache == null ? component(display.title()) : cache.component(display.title(), this::component))
+                    .append(",\n        \"description\": ")
+                    .append(cache == null ? component(display.description()) : cache.component(display.description(), this::component))
+                    .append(",\n        \"frame\": \"")
+                    .append(display.frame().id())
+                    .append("\",\n        \"background\": \"")
+                    .append(root ? advancement.tab().background().asString() : null)
+                    .append("\",\n        \"show_toast\": ")
+                    .append(display.showToast() && !managed)
+                    .append(",\n        \"announce_to_chat\": ")
+                    .append(display.announceToChat() && !managed)
+                    .append(",\n        \"hidden\": ")
+                    .append(display.hidden())
+                    .append("\n    },\n    \"criteria\": ");
+
+            writer.beginObject();
+            for (final String criterion : advancement.criteria())
+                writer.name(criterion).jsonValue(IMPOSSIBLE_TRIGGER);
+            writer.endObject();
+
+            buffer.append(",\n    \"requirements\": ");
+            writer.beginArray();
+            for (final Set<String> group : advancement.requirements()) {
+                writer.beginArray();
+                for (final String criterion : group)
+                    writer.value(criterion);
+                writer.endArray();
+            }
+            writer.endArray();
+
+            buffer.append(",\n    \"rewards\": {\n        \"experience\": ")
+                    .append(managed ? 0 : rewards.experience())
+                    .append(",\n        \"recipes\": ");
+            writeKeys(managed ? List.of() : rewards.recipeKeys());
+            buffer.append(",\n        \"loot\": ");
+            writeKeys(managed ? List.of() : rewards.lootTableKeys());
+            buffer.append("\n    }\n}\n");
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not write advancement JSON", e); // never thrown by the buffer
+        }
+        return buffer.toString();
+    }
+
+    private String icon(final ItemStack icon) {
+        return unsafe.serializeItemAsJson(icon).toString();
+    }
+
+    private String component(final Component component) {
+        return componentSerializer.serialize(component);
+    }
+
+    private void writeKeys(final Iterable<NamespacedKey> keys) throws IOException {
+        writer.beginArray();
+        for (final NamespacedKey key : keys)
+            writer.value(key.asString());
+        writer.endArray();
+    }
+
+    /**
+     * A {@link Writer} appending directly to a {@link StringBuilder}, unlike {@link java.io.StringWriter},
+     * it does not synchronize.
+     */
+    private static final class BufferWriter extends Writer {
+        private final StringBuilder buffer;
+
+        private BufferWriter(final StringBuilder buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(final char[] chars, final int off, final int len) {
+            buffer.append(chars, off, len);
+        }
+
+        @Override
+        public void write(final int c) {
+            buffer.append((char) c);
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) {
+            buffer.append(str, off, off + len);
+        }
+
+        @Override
+        public Writer append(final CharSequence csq) {
+            buffer.append(csq);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package cz.jeme.advancium;
+
+import org.bukkit.plugin.Plugin;
+
+import java.time.Duration;
+
+/**
+ * Represents a watchdog measuring the time spent in the event handlers of the advancements of a plugin.
+ * <p>
+ * The watchdog sums the time of all event handlers of each advancement per tick, and averages it
+ * over a sliding window of ticks. Advancements whose handlers take longer than the budget on average are logged,
+ * and optionally suspended: their handlers are skipped for a while and then re-enabled.
+ * </p>
+ * <p>
+ * Only the handlers added using {@link CustomAdvancement.Builder#on(Class, org.bukkit.event.EventPriority, java.util.function.BiConsumer)}
+ * are suspended. The {@link CustomAdvancement.Builder#onCriterionGranted(java.util.function.BiConsumer) criterion}
+ * and {@link CustomAdvancement.Builder#onAdvancementCompleted(java.util.function.BiConsumer) completion} handlers
+ * always run, so players never miss their rewards, but their time counts against the budget.
+ * The delivery of loot rewards is measured separately and does not count against the budget.
+ * </p>
+ * <p>
+ * Regardless of the watchdog, a handler that throws an exception is logged and the other handlers
+ * of the event still run.
+ * </p>
+ * Example:
+ * <pre>{@code
+ * AdvancementWatchdog.watchdog(plugin)
+ *     .budget(Duration.ofMillis(2))
+ *     .suspendFor(Duration.ofMinutes(1))
+ *     .start();
+ * }</pre>
+ */
+public sealed interface AdvancementWatchdog permits AdvancementWatchdogImpl {
+    /**
+     * Creates a new builder for a watchdog of the given plugin.
+     *
+     * @param plugin the plugin whose advancements are watched
+     * @return the builder to configure and start the watchdog
+     */
+    static Builder watchdog(final Plugin plugin) {
+        return new AdvancementWatchdogImpl.Builder(plugin);
+    }
+
+    /**
+     * Gets the plugin whose advancements are watched.
+     *
+     * @return the plugin
+     */
+    Plugin plugin();
+
+    /**
+     * Checks whether the handlers of an advancement are suspended.
+     *
+     * @param advancement the advancement to check
+     * @return {@code true} if the handlers of the advancement are currently skipped, otherwise {@code false}
+     */
+    boolean isSuspended(final CustomAdvancement advancement);
+
+    /**
+     * Re-enables the handlers of a suspended advancement during the next tick.
+     * <p>
+     * Calling this method for an advancement that is not suspended has no effect.
+     * </p>
+     *
+     * @param advancement the advancement to re-enable
+     */
+    void resume(final CustomAdvancement advancement);
+
+    /**
+     * Stops this watchdog and re-enables all suspended handlers.
+     * <p>
+     * The watchdog is stopped automatically when the plugin is disabled.
+     * </p>
+     */
+    void stop();
+
+    /**
+     * Builder for creating and starting instances of {@link AdvancementWatchdog}.
+     */
+    sealed interface Builder permits AdvancementWatchdogImpl.Builder {
+        /**
+         * Sets the average time the handlers of a single advancement may take per tick.
+         * <p>
+         * <strong>Default:</strong> 1 millisecond
+         * </p>
+         *
+         * @param budget the time budget per tick
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the budget is not positive
+         */
+        Builder budget(final Duration budget);
+
+        /**
+         * Sets the number of ticks the handler time is averaged over.
+         * <p>
+         * An advancement is logged at most once per window.
+         * <p>
+         * <strong>Default:</strong> {@code 100}
+         * </p>
+         *
+         * @param ticks the length of the sliding window in ticks
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the window is not positive
+         */
+        Builder window(final int ticks);
+
+        /**
+         * Makes the watchdog suspend the handlers of advancements that exceed the budget.
+         * <p>
+         * The handlers are skipped for the given time and then re-enabled.
+         * <p>
+         * <strong>Default:</strong> the handlers are only logged, never suspended
+         * </p>
+         *
+         * @param cooldown how long the handlers stay suspended
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the cooldown is not positive
+         */
+        Builder suspendFor(final Duration cooldown);
+
+        /**
+         * Starts the watchdog, replacing the current watchdog of the plugin.
+         *
+         * @return the started watchdog
+         */
+        AdvancementWatchdog start();
+    }
+}
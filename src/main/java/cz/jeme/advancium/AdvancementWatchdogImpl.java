@@ -0,0 +1,165 @@
+package cz.jeme.advancium;
+
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+final class AdvancementWatchdogImpl implements AdvancementWatchdog {
+    private final Plugin plugin;
+    private final long budgetNanos;
+    private final int window;
+    /**
+     * How many ticks the handlers stay suspended, {@code 0} if they are never suspended.
+     */
+    private final long cooldownTicks;
+    private final Map<CustomAdvancement, Stats> statsMap = new ConcurrentHashMap<>();
+    private volatile @Nullable Runnable cancelTask;
+    private long tick = 0; // timer thread only
+
+    /**
+     * Handler times of a single advancement.
+     */
+    private static final class Stats {
+        // handler threads
+        private final LongAdder current = new LongAdder();
+        private volatile boolean suspended = false;
+        private volatile long resumeTick = 0;
+        // timer thread only
+        private final long[] ticks;
+        private long sum = 0;
+        private long warnedTick = Long.MIN_VALUE / 2;
+
+        private Stats(final int window) {
+            ticks = new long[window];
+        }
+    }
+
+    private AdvancementWatchdogImpl(final Builder builder) {
+        plugin = builder.plugin;
+        budgetNanos = builder.budget.toNanos();
+        window = builder.window;
+        cooldownTicks = builder.cooldown == null ? 0 : Math.max(1, builder.cooldown.toMillis() / 50);
+    }
+
+    @Override
+    public Plugin plugin() {
+        return plugin;
+    }
+
+    public void record(final CustomAdvancement advancement, final long nanos) {
+        Stats stats = statsMap.get(advancement);
+        if (stats == null) stats = statsMap.computeIfAbsent(advancement, $ -> new Stats(window));
+        stats.current.add(nanos);
+    }
+
+    @Override
+    public boolean isSuspended(final CustomAdvancement advancement) {
+        final Stats stats = statsMap.get(advancement);
+        return stats != null && stats.suspended;
+    }
+
+    @Override
+    public void resume(final CustomAdvancement advancement) {
+        final Stats stats = statsMap.get(advancement);
+        if (stats != null) stats.resumeTick = 0;
+    }
+
+    private void tick() {
+        tick++;
+        final int index = (int) (tick % window);
+        statsMap.entrySet().removeIf(entry -> ((AbstractCustomAdvancement) entry.getKey()).unloaded());
+        statsMap.forEach((advancement, stats) -> {
+            final long nanos = stats.current.sumThenReset();
+            stats.sum += nanos - stats.ticks[index];
+            stats.ticks[index] = nanos;
+
+            if (stats.suspended) {
+                if (tick < stats.resumeTick) return;
+                Arrays.fill(stats.ticks, 0);
+                stats.sum = 0;
+                stats.suspended = false;
+                plugin.getLogger().info("Resumed the handlers of advancement \"" + advancement.key() + "\"");
+                return;
+            }
+
+            final long average = stats.sum / window;
+            if (average <= budgetNanos || tick - stats.warnedTick < window) return;
+            stats.warnedTick = tick;
+            final String message = "The handlers of advancement \"" + advancement.key() + "\" took "
+                                   + String.format("%.3f", average / 1e6) + " ms per tick on average over the last "
+                                   + window + " ticks (budget " + String.format("%.3f", budgetNanos / 1e6) + " ms)";
+            if (cooldownTicks == 0) {
+                plugin.getLogger().warning(message);
+                return;
+            }
+            stats.resumeTick = tick + cooldownTicks;
+            stats.suspended = true;
+            plugin.getLogger().warning(message + ", suspending them for " + cooldownTicks + " ticks");
+        });
+    }
+
+    private void start() {
+        final AdvancementWatchdogImpl previous = EventManager.forPlugin(plugin).watchdog(this);
+        if (previous != null) previous.cancel();
+        cancelTask = TaskScheduler.runGlobalTimer(plugin, this::tick);
+    }
+
+    private void cancel() {
+        final Runnable cancelTask = this.cancelTask;
+        if (cancelTask != null) cancelTask.run();
+        this.cancelTask = null;
+    }
+
+    @Override
+    public void stop() {
+        cancel();
+        final EventManager eventManager = EventManager.forPluginIfPresent(plugin);
+        if (eventManager != null) eventManager.removeWatchdog(this);
+    }
+
+    static final class Builder implements AdvancementWatchdog.Builder {
+        private final Plugin plugin;
+        private Duration budget = Duration.ofMillis(1);
+        private int window = 100;
+        private @Nullable Duration cooldown;
+
+        public Builder(final Plugin plugin) {
+            this.plugin = plugin;
+        }
+
+        @Override
+        public AdvancementWatchdog.Builder budget(final Duration budget) {
+            if (budget.isNegative() || budget.isZero())
+                throw new IllegalArgumentException("The time budget must be positive");
+            this.budget = budget;
+            return this;
+        }
+
+        @Override
+        public AdvancementWatchdog.Builder window(final int ticks) {
+            if (ticks <= 0) throw new IllegalArgumentException("The window must be positive");
+            this.window = ticks;
+            return this;
+        }
+
+        @Override
+        public AdvancementWatchdog.Builder suspendFor(final Duration cooldown) {
+            if (cooldown.isNegative() || cooldown.isZero())
+                throw new IllegalArgumentException("The cooldown must be positive");
+            this.cooldown = cooldown;
+            return this;
+        }
+
+        @Override
+        public AdvancementWatchdog start() {
+            final AdvancementWatchdogImpl watchdog = new AdvancementWatchdogImpl(this);
+            watchdog.start();
+            return watchdog;
+        }
+    }
+}
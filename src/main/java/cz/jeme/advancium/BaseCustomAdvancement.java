@@ -9,7 +9,7 @@ final class BaseCustomAdvancement extends AbstractCustomAdvancement {
 
     @ApiStatus.Internal
     BaseCustomAdvancement(final Builder builder, final CustomAdvancement parent) {
-        super(builder, parent.plugin());
+        super(builder, parent.plugin(), ((AbstractCustomAdvancement) parent).pendingBatch());
 
         this.parent = parent;
         this.tab = parent.tab();
@@ -11,7 +11,7 @@ final class BukkitCustomAdvancement extends AbstractCustomAdvancement {
     BukkitCustomAdvancement(final Builder builder,
                             final NamespacedKey parentKey,
                             final Plugin plugin) {
-        super(builder, plugin);
+        super(builder, plugin, null);
 
         this.parentKey = parentKey;
     }
@@ -11,9 +11,13 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.Unmodifiable;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -35,6 +39,24 @@ public sealed interface CustomAdvancement extends Keyed permits AbstractCustomAd
         return new AbstractCustomAdvancement.Builder(key);
     }
 
+    /**
+     * Sets how much time the queued grants and revokes of a plugin may take per server tick.
+     * <p>
+     * Queued grants (see {@link #grant(Collection, Collection)} and {@link #grantAsync(UUID, String)})
+     * are applied once per tick until this budget is used up, the remaining grants are applied during
+     * the following ticks. The grants of at least one player are applied every tick.
+     * <p>
+     * <strong>Default:</strong> 5 milliseconds
+     * </p>
+     *
+     * @param plugin the plugin whose grants are limited
+     * @param budget the time budget per tick
+     * @throws IllegalArgumentException if the budget is not positive
+     */
+    static void grantTimeBudget(final Plugin plugin, final Duration budget) {
+        GrantQueue.forPlugin(plugin).budget(budget);
+    }
+
     /**
      * Gets the display properties of the custom advancement.
      *
@@ -57,7 +79,7 @@ public sealed interface CustomAdvancement extends Keyed permits AbstractCustomAd
      * Which criteria must be met to complete this advancement is defined in the {@link #requirements()}.
      * </p>
      *
-     * @return an unmodifiable {@link Set} of criteria
+     * @return an unmodifiable {@link Set} of criteria, iterated in their natural order
      * @see #requirements()
      */
     @Unmodifiable
@@ -82,7 +104,8 @@ public sealed interface CustomAdvancement extends Keyed permits AbstractCustomAd
      * To complete the second group, they must obtain either the {@code "iron_shovel"}
      * or the {@code "iron_hoe"} criterion.
      *
-     * @return an unmodifiable {@link Set} of requirement groups, where each group is a {@link Set} of criteria
+     * @return an unmodifiable {@link Set} of requirement groups, where each group is a {@link Set} of criteria,
+     * both iterated in a stable order
      */
     @Unmodifiable
     Set<Set<String>> requirements();
@@ -97,6 +120,217 @@ public sealed interface CustomAdvancement extends Keyed permits AbstractCustomAd
      */
     AdvancementProgress progress(final Player player);
 
+    /**
+     * Checks whether the given player has been awarded a criterion of this advancement.
+     * <p>
+     * The awarded criteria of each online player are cached, so unlike {@link #progress(Player)},
+     * this method only queries the server the first time it is called for the player.
+     * The cache is kept current by criterion grants and by {@link #revoke(Player, String)}.
+     * Criteria revoked in other ways (e.g. using the {@code /advancement} command)
+     * are not reflected until the player rejoins.
+     *
+     * @param player    the player to check
+     * @param criterion the name of the criterion
+     * @return {@code true} if the criterion is awarded, otherwise {@code false}
+     * @throws IllegalArgumentException if this advancement does not have the criterion
+     */
+    boolean isAwarded(final Player player, final String criterion);
+
+    /**
+     * Checks whether the given player has completed this advancement.
+     * <p>
+     * Uses the same cache as {@link #isAwarded(Player, String)}.
+     *
+     * @param player the player to check
+     * @return {@code true} if all requirements of this advancement are met, otherwise {@code false}
+     */
+    boolean isDone(final Player player);
+
+    /**
+     * Awards a criterion of this advancement to the given player.
+     * <p>
+     * If the criterion is already awarded according to the cache used by {@link #isAwarded(Player, String)},
+     * this method returns immediately without querying the server.
+     *
+     * @param player    the player to award the criterion to
+     * @param criterion the name of the criterion
+     * @return {@code true} if the criterion was awarded, {@code false} if it already was or the grant was cancelled
+     * @throws IllegalArgumentException if this advancement does not have the criterion
+     */
+    boolean grant(final Player player, final String criterion);
+
+    /**
+     * Revokes a criterion of this advancement from the given player.
+     * <p>
+     * If the criterion is not awarded according to the cache used by {@link #isAwarded(Player, String)},
+     * this method returns immediately without querying the server.
+     *
+     * @param player    the player to revoke the criterion from
+     * @param criterion the name of the criterion
+     * @return {@code true} if the criterion was revoked, {@code false} if it was not awarded
+     * @throws IllegalArgumentException if this advancement does not have the criterion
+     */
+    boolean revoke(final Player player, final String criterion);
+
+    /**
+     * Gets the value of a counter of this advancement for the given player.
+     * <p>
+     * Counter values are persisted in the {@code counters} {@link CustomAdvancementStore} of the plugin,
+     * so they survive rejoins and restarts. If the player has been awarded a milestone above the stored value,
+     * for example by {@link #grant(Player, String)}, the counter continues from that milestone.
+     *
+     * @param player  the player whose counter is read
+     * @param counter the name of the counter
+     * @return the value of the counter
+     * @throws IllegalArgumentException if this advancement does not have the counter
+     * @see Builder#counter(String, long, int)
+     */
+    long counter(final Player player, final String counter);
+
+    /**
+     * Increments a counter of this advancement for the given player.
+     * <p>
+     * When the counter reaches a milestone, its criterion is awarded as with {@link #grant(Player, String)}.
+     * Increments that do not reach a milestone do not allocate, so this method is suitable for frequent events.
+     * Like {@link #grant(Player, String)}, it must be called on the thread owning the player.
+     *
+     * @param player  the player whose counter is incremented
+     * @param counter the name of the counter
+     * @param amount  the amount to add
+     * @return the new value of the counter
+     * @throws IllegalArgumentException if this advancement does not have the counter or the amount is negative
+     * @see Builder#counter(String, long, int)
+     */
+    long increment(final Player player, final String counter, final long amount);
+
+    /**
+     * Increments a counter of this advancement for the given player by one.
+     * <p>
+     * See {@link #increment(Player, String, long)}.
+     *
+     * @param player  the player whose counter is incremented
+     * @param counter the name of the counter
+     * @return the new value of the counter
+     * @throws IllegalArgumentException if this advancement does not have the counter
+     */
+    default long increment(final Player player, final String counter) {
+        return increment(player, counter, 1);
+    }
+
+    /**
+     * Resets a counter of this advancement to zero and revokes the criteria of all its milestones.
+     *
+     * @param player  the player whose counter is reset
+     * @param counter the name of the counter
+     * @throws IllegalArgumentException if this advancement does not have the counter
+     */
+    void resetCounter(final Player player, final String counter);
+
+    /**
+     * Awards criteria of this advancement to multiple players.
+     * <p>
+     * The grants are queued and applied on the main thread during the next server tick. All grants and revokes queued
+     * for the same player within a tick are merged and applied together, so the player receives a single
+     * progress update. Handlers and rewards fire as with {@link #grant(Player, String)}.
+     * Players who quit before the grants are applied are skipped. If the queued grants exceed
+     * the time budget of the tick, the rest is applied later, see {@link #grantTimeBudget(Plugin, Duration)}.
+     *
+     * @param players  the players to award the criteria to
+     * @param criteria the names of the criteria
+     * @throws IllegalArgumentException if this advancement does not have any of the criteria
+     */
+    void grant(final Collection<? extends Player> players, final Collection<String> criteria);
+
+    /**
+     * Completes this advancement for multiple players by awarding them all of its criteria.
+     * <p>
+     * The grants are queued and applied during the next server tick, see {@link #grant(Collection, Collection)}.
+     *
+     * @param players the players to complete this advancement for
+     */
+    default void grant(final Collection<? extends Player> players) {
+        grant(players, criteria());
+    }
+
+    /**
+     * Revokes criteria of this advancement from multiple players.
+     * <p>
+     * The revokes are queued and applied during the next server tick, see {@link #grant(Collection, Collection)}.
+     *
+     * @param players  the players to revoke the criteria from
+     * @param criteria the names of the criteria
+     * @throws IllegalArgumentException if this advancement does not have any of the criteria
+     */
+    void revoke(final Collection<? extends Player> players, final Collection<String> criteria);
+
+    /**
+     * Revokes all criteria of this advancement from multiple players.
+     * <p>
+     * The revokes are queued and applied during the next server tick, see {@link #grant(Collection, Collection)}.
+     *
+     * @param players the players to revoke the criteria from
+     */
+    default void revoke(final Collection<? extends Player> players) {
+        revoke(players, criteria());
+    }
+
+    /**
+     * Awards a criterion of this advancement to a player from any thread.
+     * <p>
+     * The grant is pushed to a lock-free queue, which is drained on the main thread once per tick.
+     * Duplicate requests are merged and the grant is applied together with all other grants queued for the player,
+     * see {@link #grant(Collection, Collection)}. The returned future is completed on the thread owning the player
+     * (the main thread on Paper, the player's region thread on Folia).
+     *
+     * @param player    the unique id of the player to award the criterion to
+     * @param criterion the name of the criterion
+     * @return a future completed with {@code true} if the criterion was awarded, or with {@code false}
+     * if it already was, the grant was cancelled, superseded by a revoke or the player is offline
+     * @throws IllegalArgumentException if this advancement does not have the criterion
+     */
+    CompletableFuture<Boolean> grantAsync(final UUID player, final String criterion);
+
+    /**
+     * Awards a criterion of this advancement to a player from any thread.
+     * <p>
+     * See {@link #grantAsync(UUID, String)}.
+     *
+     * @param player    the player to award the criterion to
+     * @param criterion the name of the criterion
+     * @return a future completed with {@code true} if the criterion was awarded, otherwise with {@code false}
+     * @throws IllegalArgumentException if this advancement does not have the criterion
+     */
+    default CompletableFuture<Boolean> grantAsync(final Player player, final String criterion) {
+        return grantAsync(player.getUniqueId(), criterion);
+    }
+
+    /**
+     * Revokes a criterion of this advancement from a player from any thread.
+     * <p>
+     * The revoke is queued the same way as grants, see {@link #grantAsync(UUID, String)}.
+     *
+     * @param player    the unique id of the player to revoke the criterion from
+     * @param criterion the name of the criterion
+     * @return a future completed with {@code true} if the criterion was revoked, or with {@code false}
+     * if it was not awarded, the revoke was superseded by a grant or the player is offline
+     * @throws IllegalArgumentException if this advancement does not have the criterion
+     */
+    CompletableFuture<Boolean> revokeAsync(final UUID player, final String criterion);
+
+    /**
+     * Revokes a criterion of this advancement from a player from any thread.
+     * <p>
+     * See {@link #revokeAsync(UUID, String)}.
+     *
+     * @param player    the player to revoke the criterion from
+     * @param criterion the name of the criterion
+     * @return a future completed with {@code true} if the criterion was revoked, otherwise with {@code false}
+     * @throws IllegalArgumentException if this advancement does not have the criterion
+     */
+    default CompletableFuture<Boolean> revokeAsync(final Player player, final String criterion) {
+        return revokeAsync(player.getUniqueId(), criterion);
+    }
+
     /**
      * Gets the {@link CustomAdvancementTab} where this advancement is displayed.
      *
@@ -132,9 +366,23 @@ public sealed interface CustomAdvancement extends Keyed permits AbstractCustomAd
      * Converts this custom advancement into a Bukkit {@link Advancement} instance.
      *
      * @return the corresponding Bukkit advancement
+     * @throws IllegalStateException if this advancement has been unloaded
+     * @see #unload()
      */
     Advancement asBukkit();
 
+    /**
+     * Unloads this advancement and all its descendants.
+     * <p>
+     * All event handlers of the unloaded advancements are unsubscribed and the advancements
+     * are removed from the server. Player progress of the removed advancements is not preserved.
+     * Calling this method on an already unloaded advancement has no effect.
+     * <p>
+     * All advancements of a plugin are unloaded automatically when the plugin is disabled,
+     * before its {@code onDisable} is called.
+     */
+    void unload();
+
     /**
      * Checks whether this custom advancement is a root custom advancement.
      * <p>
@@ -296,6 +544,70 @@ public sealed interface CustomAdvancement extends Keyed permits AbstractCustomAd
             );
         }
 
+        /**
+         * Adds a counter to this advancement.
+         * <p>
+         * A counter is a per-player number incremented using {@link CustomAdvancement#increment(Player, String, long)}.
+         * Once the counter reaches the threshold, the criterion named after the counter is awarded.
+         * The counter is split into the given number of milestones, each milestone is a separate criterion
+         * (named {@code criterion#1}, {@code criterion#2}, ...) awarded once the counter reaches its share
+         * of the threshold, so that the progress shown to the player moves while counting.
+         * The last milestone is the criterion named after the counter.
+         * <p>
+         * All milestone criteria are added to the requirements, each forming its own group.
+         * If the requirements were not set, the default {@code "dummy"} requirement is not used.
+         * </p>
+         * Example:
+         * <pre>{@code
+         * CustomAdvancement.advancement(key)
+         *     .counter("stone", 10_000, 10) // stone#1 at 1,000 stone mined, ..., stone at 10,000
+         *     .on(BlockBreakEvent.class, (event, advancement) -> {
+         *         if (event.getBlock().getType() == Material.STONE)
+         *             advancement.increment(event.getPlayer(), "stone");
+         *     })
+         * }</pre>
+         *
+         * @param criterion  the name of the counter and of the criterion awarded when the threshold is reached
+         * @param threshold  the value at which the counter is completed
+         * @param milestones the number of criteria the counter is split into, {@code 1} for a single criterion
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the name is empty or contains only whitespace, the counter already exists,
+         *                                  the threshold is not positive or the number of milestones is not between {@code 1}
+         *                                  and the threshold
+         */
+        Builder counter(final String criterion, final long threshold, final int milestones);
+
+        /**
+         * Adds a counter with a single criterion awarded when the threshold is reached.
+         * <p>
+         * See {@link #counter(String, long, int)}.
+         *
+         * @param criterion the name of the counter and of the criterion awarded when the threshold is reached
+         * @param threshold the value at which the counter is completed
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the name is empty or contains only whitespace, the counter already exists
+         *                                  or the threshold is not positive
+         */
+        default Builder counter(final String criterion, final long threshold) {
+            return counter(criterion, threshold, 1);
+        }
+
+        /**
+         * Adds this advancement to a {@link CustomAdvancementBatch} instead of loading it immediately.
+         * <p>
+         * The advancement is registered when built, but it is loaded to the server only
+         * when {@link CustomAdvancementBatch#load()} is called. Advancements bound to a parent
+         * that is pending in a batch join the parent's batch automatically, so this is mostly useful for
+         * advancements built with {@link #buildAndBindToBukkit(NamespacedKey, Plugin)}.
+         * </p>
+         *
+         * @param batch the batch to add this advancement to
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the batch has already been loaded
+         * @see CustomAdvancementBatch
+         */
+        Builder batch(final CustomAdvancementBatch batch);
+
         /**
          * Adds an event handler for this advancement.
          *
@@ -344,9 +656,13 @@ public sealed interface CustomAdvancement extends Keyed permits AbstractCustomAd
 
         /**
          * Builds this advancement and binds it to a specified {@link CustomAdvancement} parent.
+         * <p>
+         * If the parent is pending in a {@link CustomAdvancementBatch}, this advancement joins that batch.
+         * </p>
          *
          * @param parent the parent custom advancement
          * @return the built custom advancement
+         * @throws IllegalArgumentException if this builder was given a different batch than the one the parent is pending in
          */
         CustomAdvancement buildAndBindTo(final CustomAdvancement parent);
 
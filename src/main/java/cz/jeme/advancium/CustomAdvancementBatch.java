@@ -0,0 +1,126 @@
+package cz.jeme.advancium;
+
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Represents a batch of custom advancements that are loaded to the server together.
+ * <p>
+ * Advancements built into a batch are registered immediately, but they are not loaded to the server
+ * until {@link #load()} is called. Advancements bound to a parent that is still pending in a batch
+ * automatically join the parent's batch, so a whole {@link CustomAdvancementTab} can be collected
+ * by only passing the batch to {@link CustomAdvancementTab.Builder#batch(CustomAdvancementBatch)}.
+ * </p>
+ * Example:
+ * <pre>{@code
+ * CustomAdvancementBatch batch = CustomAdvancementBatch.batch();
+ * CustomAdvancementTab tab = CustomAdvancementTab.tab(plugin)
+ *     .root(CustomAdvancement.advancement(rootKey))
+ *     .batch(batch)
+ *     .buildAndLoad();
+ * CustomAdvancement.advancement(childKey).buildAndBindTo(tab); // joins the batch
+ * batch.load();
+ * }</pre>
+ */
+public sealed interface CustomAdvancementBatch permits CustomAdvancementBatchImpl {
+    /**
+     * Creates a new empty batch.
+     *
+     * @return the new batch
+     */
+    static CustomAdvancementBatch batch() {
+        return new CustomAdvancementBatchImpl();
+    }
+
+    /**
+     * Gets the advancements collected in this batch in the order they will be (or were) loaded.
+     * <p>
+     * Parents are always placed before their children.
+     * </p>
+     *
+     * @return an unmodifiable {@link List} of the collected advancements
+     */
+    @Unmodifiable
+    List<CustomAdvancement> advancements();
+
+    /**
+     * Checks whether this batch has already been loaded.
+     *
+     * @return {@code true} if this batch has been loaded using any of the load methods, otherwise {@code false}
+     */
+    boolean loaded();
+
+    /**
+     * Loads all collected advancements to the server, parents before their children.
+     * <p>
+     * The JSON of all advancements is generated before any of them is loaded, so an advancement
+     * that fails to serialize leaves the whole batch unloaded. The server still loads each advancement
+     * by a separate call, which also updates the online players, so a batch only speeds up preparing
+     * the advancements, it does not merge the updates sent to players. Only {@link #loadAsDatapack(String)}
+     * avoids the separate calls, on the following starts.
+     * After this call, no more advancements can be added to this batch.
+     * </p>
+     *
+     * @throws IllegalStateException if this batch has already been loaded
+     */
+    void load();
+
+    /**
+     * Loads all collected advancements to the server without generating their JSON on the main thread.
+     * <p>
+     * The JSON of the collected advancements is generated in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}, then all advancements are loaded to the server one after another
+     * in a single task on the main thread (the global region on Folia). The collected advancements must not be used
+     * until the returned future completes, advancements bound to them in the meantime join this batch
+     * and are loaded together with it. After this call, no more advancements can be added to this batch
+     * using the builders.
+     * </p>
+     *
+     * @return a {@link CompletableFuture} completed on the main thread once all advancements are loaded,
+     * or completed exceptionally if any of them failed to load
+     * @throws IllegalStateException if this batch has already been loaded
+     */
+    CompletableFuture<Void> loadAsync();
+
+    /**
+     * Loads all collected advancements to the server through a datapack.
+     * <p>
+     * The JSON of the collected advancements is exported into a datapack with the provided name
+     * in the {@code datapacks} directory of the main world. The datapack is loaded natively by the server
+     * on the next start, in which case this method only binds the advancements to the already loaded ones
+     * instead of injecting them at runtime. The datapack is exported again only when the definition
+     * of any collected advancement changes, then the advancements are also loaded at runtime as with {@link #load()}.
+     * <p>
+     * Each batch should use its own datapack name. After this call, no more advancements can be added to this batch.
+     * </p>
+     * <p>
+     * When the plugin is disabled, its datapacks that were not loaded by any batch since it was enabled are deleted,
+     * their batches no longer exist.
+     * </p>
+     *
+     * @param name the name of the datapack directory, may only contain {@code [a-z0-9_.-]}
+     * @throws IllegalArgumentException if the name is invalid
+     * @throws IllegalStateException    if this batch has already been loaded or no world is loaded yet
+     */
+    void loadAsDatapack(final String name);
+
+    /**
+     * Loads all collected advancements to the server in place of a previously loaded tab.
+     * <p>
+     * The JSON generated for every collected advancement is compared by its content hash with the JSON
+     * the advancement with the same key was loaded with. Unchanged advancements are kept on the server,
+     * which preserves player progress and avoids resending them to players. Changed advancements
+     * (together with their descendants) are replaced and advancements of the previous tab that
+     * are not part of this batch are removed.
+     * <p>
+     * All handlers of the previous tab are unsubscribed and the previous tab must not be used anymore.
+     * After this call, no more advancements can be added to this batch.
+     * </p>
+     *
+     * @param previous the previously loaded tab to replace
+     * @throws IllegalStateException if this batch has already been loaded
+     */
+    void reload(final CustomAdvancementTab previous);
+}
@@ -0,0 +1,176 @@
+package cz.jeme.advancium;
+
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+final class CustomAdvancementBatchImpl implements CustomAdvancementBatch {
+    // advancements bound while the batch is prepared asynchronously are added from other threads
+    private final List<AbstractCustomAdvancement> advancements = new CopyOnWriteArrayList<>();
+    // set when a load method is called
+    private volatile boolean loaded = false;
+    // set once the advancements are on the server, later than loaded while loading asynchronously
+    private volatile boolean applied = false;
+
+    @ApiStatus.Internal
+    void add(final AbstractCustomAdvancement advancement) {
+        if (applied) throw new IllegalStateException("This batch has already been loaded");
+        advancements.add(advancement);
+    }
+
+    /**
+     * Checks whether the advancements of this batch have been loaded to the server,
+     * until then advancements bound to them still join this batch.
+     */
+    @ApiStatus.Internal
+    boolean applied() {
+        return applied;
+    }
+
+    @Override
+    public @Unmodifiable List<CustomAdvancement> advancements() {
+        return Collections.unmodifiableList(advancements);
+    }
+
+    @Override
+    public boolean loaded() {
+        return loaded;
+    }
+
+    @Override
+    public void load() {
+        if (loaded) throw new IllegalStateException("This batch has already been loaded");
+        loaded = true;
+        try {
+            final List<AbstractCustomAdvancement> pending = pending();
+            subscribe(pending);
+            apply(AdvancementLoader.INSTANCE.prepare(pending));
+        } finally {
+            applied = true;
+        }
+        updateVisibility();
+    }
+
+    @Override
+    public CompletableFuture<Void> loadAsync() {
+        if (loaded) throw new IllegalStateException("This batch has already been loaded");
+        loaded = true;
+        final int count = advancements.size();
+        final List<AbstractCustomAdvancement> pending = pending();
+        if (pending.isEmpty()) {
+            applied = true;
+            return CompletableFuture.completedFuture(null);
+        }
+        final Plugin plugin = pending.getFirst().plugin();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> AdvancementLoader.INSTANCE.prepare(pending)).whenComplete((prepared, e) -> {
+            if (e != null) {
+                applied = true;
+                future.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                return;
+            }
+            try {
+                TaskScheduler.runGlobal(plugin, () -> {
+                    try {
+                        subscribe(pending);
+                        apply(prepared);
+                        // bound to the pending advancements while they were being prepared, children follow their parents
+                        final List<AbstractCustomAdvancement> late = advancements.stream()
+                                .skip(count)
+                                .filter(advancement -> !advancement.unloaded())
+                                .toList();
+                        subscribe(late);
+                        if (!late.isEmpty()) apply(AdvancementLoader.INSTANCE.prepare(late));
+                    } catch (final Throwable t) {
+                        future.completeExceptionally(t);
+                        return;
+                    } finally {
+                        applied = true;
+                    }
+                    try {
+                        updateVisibility();
+                        future.complete(null);
+                    } catch (final Throwable t) {
+                        future.completeExceptionally(t);
+                    }
+                });
+            } catch (final Throwable t) { // the plugin was disabled in the meantime
+                applied = true;
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Updates the visibility of the tabs whose roots this batch has loaded,
+     * which is skipped while the roots are pending.
+     */
+    private void updateVisibility() {
+        for (final AbstractCustomAdvancement advancement : advancements)
+            if (advancement.isRoot() && !advancement.unloaded()) advancement.tab().updateVisibility();
+    }
+
+    private List<AbstractCustomAdvancement> pending() {
+        return advancements.stream()
+                .filter(advancement -> !advancement.unloaded())
+                .toList();
+    }
+
+    /**
+     * Subscribes the handlers of the provided advancements, a single change per handler table
+     * instead of one per handler.
+     */
+    private static void subscribe(final List<AbstractCustomAdvancement> advancements) {
+        final Map<Plugin, List<EventManager.Subscription>> subscriptionMap = new LinkedHashMap<>();
+        for (final AbstractCustomAdvancement advancement : advancements)
+            subscriptionMap.computeIfAbsent(advancement.plugin(), $ -> new ArrayList<>())
+                    .addAll(advancement.takeSubscriptions());
+        subscriptionMap.forEach((plugin, subscriptions) -> EventManager.forPlugin(plugin).subscribeAll(subscriptions));
+    }
+
+    private static void apply(final List<AdvancementLoader.Prepared> prepared) {
+        // advancements are added as they are built, so every parent precedes its children
+        for (final AdvancementLoader.Prepared entry : prepared)
+            ((AbstractCustomAdvancement) entry.advancement()).load(entry);
+    }
+
+    @Override
+    public void loadAsDatapack(final String name) {
+        if (loaded) throw new IllegalStateException("This batch has already been loaded");
+        final Path directory = AdvancementDatapack.directory(name);
+        loaded = true;
+        try {
+            final List<AbstractCustomAdvancement> pending = pending();
+            subscribe(pending);
+            AdvancementLoader.INSTANCE.loadFromDatapack(pending, directory);
+        } finally {
+            applied = true;
+        }
+        updateVisibility();
+    }
+
+    @Override
+    public void reload(final CustomAdvancementTab previous) {
+        if (loaded) throw new IllegalStateException("This batch has already been loaded");
+        loaded = true;
+        try {
+            final List<AbstractCustomAdvancement> pending = pending();
+            subscribe(pending);
+            AdvancementLoader.INSTANCE.reload(pending, ((AbstractCustomAdvancement) previous.root()).tree());
+        } finally {
+            applied = true;
+        }
+        updateVisibility();
+    }
+}
@@ -168,6 +168,11 @@ sealed public interface CustomAdvancementDisplay permits CustomAdvancementDispla
 
         /**
          * Sets whether the advancement should remain hidden until achieved.
+         * <p>
+         * The game sends each player only the completed advancements, their ancestors and the advancements
+         * up to two levels below a completed one. A hidden advancement is not sent until it is completed,
+         * and it also stops the two-level lookahead of the advancements below it.
+         * </p>
          *
          * @param hidden {@code true} if hidden, otherwise {@code false}
          * @return this builder instance for chaining
@@ -3,6 +3,7 @@ package cz.jeme.advancium;
 import net.kyori.adventure.text.Component;
 import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.ApiStatus;
 
 final class CustomAdvancementDisplayImpl implements CustomAdvancementDisplay {
     public static final CustomAdvancementDisplayImpl EMPTY = new CustomAdvancementDisplayImpl(new Builder());
@@ -30,6 +31,14 @@ final class CustomAdvancementDisplayImpl implements CustomAdvancementDisplay {
         return icon.clone();
     }
 
+    /**
+     * Gets the icon without the defensive copy, the returned item must not be modified.
+     */
+    @ApiStatus.Internal
+    ItemStack rawIcon() {
+        return icon;
+    }
+
     @Override
     public Component title() {
         return title;
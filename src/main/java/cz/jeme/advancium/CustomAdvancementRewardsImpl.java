@@ -6,6 +6,7 @@ import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Unmodifiable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -15,14 +16,15 @@ final class CustomAdvancementRewardsImpl implements CustomAdvancementRewards {
     private final int experience;
     private final List<NamespacedKey> recipeKeys;
     private final List<NamespacedKey> lootTableKeys;
+    private final ItemStack[] loot;
     /**
-     * A {@link List} of {@link ItemStack}s that represents the concrete loot rewards of an advancement.
+     * The loot rewards merged into stacks ready to be delivered.
      * <p>
-     * This list is package-private to optimize loot giving (defensive copies are not created).
+     * This plan is package-private to optimize loot giving (defensive copies are not created).
      * </p>
      */
     @ApiStatus.Internal
-    final List<ItemStack> loot;
+    final RewardPlan plan;
 
     private CustomAdvancementRewardsImpl(final Builder builder) {
         experience = builder.experience;
@@ -30,7 +32,8 @@ final class CustomAdvancementRewardsImpl implements CustomAdvancementRewards {
         lootTableKeys = Collections.unmodifiableList(builder.lootTableKeys);
         loot = builder.loot.stream()
                 .map(ItemStack::clone) // defensive copy to ensure immutability
-                .toList();
+                .toArray(ItemStack[]::new);
+        plan = RewardPlan.of(Arrays.asList(loot));
     }
 
     @Override
@@ -51,7 +54,10 @@ final class CustomAdvancementRewardsImpl implements CustomAdvancementRewards {
     @Override
     public @Unmodifiable List<ItemStack> loot() {
         // defensive copy to ensure immutability
-        return loot.stream().map(ItemStack::clone).toList();
+        final ItemStack[] loot = new ItemStack[this.loot.length];
+        for (int i = 0; i < loot.length; i++)
+            loot[i] = this.loot[i].clone();
+        return List.of(loot);
     }
 
     static final class Builder implements CustomAdvancementRewards.Builder {
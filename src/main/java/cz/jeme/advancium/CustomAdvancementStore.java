@@ -0,0 +1,194 @@
+package cz.jeme.advancium;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Represents a persistent store of per-player numeric values, such as counters, timestamps or streaks.
+ * <p>
+ * Each store is a single memory-mapped file in the plugin's data folder, indexed by player {@link UUID}
+ * and field name. Reads and writes only touch memory, the operating system writes the changes
+ * to the file in the background and the store additionally flushes them periodically.
+ * Because of that, the values survive a crash of the server process immediately after they are written.
+ * <p>
+ * A crash of the whole machine may lose the changes the operating system had not yet written to the disk.
+ * To limit the loss, the store periodically creates a checkpoint, which is a consistent copy of the store
+ * with a checksum, written off the main thread. If the store file was not closed cleanly and its records
+ * are found inconsistent when opened, it is restored from the last checkpoint. A value written only partially
+ * before such a crash is not always detected.
+ * <p>
+ * The store grows off the main thread once it is half full. If it fills up before it finishes growing,
+ * inserting a new value waits for the growth. Inserting fails only once the store holds about 29 million values.
+ * <p>
+ * All methods are thread-safe. Stores are closed automatically when their plugin is disabled,
+ * before its {@code onDisable} is called, so they cannot be used from {@code onDisable}.
+ * Closing a store flushes it and creates a final checkpoint.
+ * </p>
+ * Example:
+ * <pre>{@code
+ * CustomAdvancementStore store = CustomAdvancementStore.store(plugin, "quests");
+ * long streak = store.add(player, "login_streak", 1);
+ * store.set(player, "last_login", System.currentTimeMillis());
+ * }</pre>
+ */
+public sealed interface CustomAdvancementStore permits CustomAdvancementStoreImpl {
+    /**
+     * Opens a store in the data folder of the plugin, or gets it if it is already open.
+     * <p>
+     * The file is checked, restored from the checkpoint if needed and mapped off the calling thread.
+     * The methods of the store wait for that to finish when they are called before, and throw
+     * a {@link RuntimeException} if the store could not be opened.
+     * The changes are flushed to the file every 5 seconds and a checkpoint is created every 5 minutes.
+     * </p>
+     *
+     * @param plugin the plugin owning the store
+     * @param name   the name of the store file, may only contain lowercase letters, digits, {@code _}, {@code -} and {@code .}
+     * @return the store
+     * @throws IllegalArgumentException if the name is invalid
+     * @throws IllegalStateException    if the plugin is not enabled
+     */
+    static CustomAdvancementStore store(final Plugin plugin, final String name) {
+        return store(plugin, name, Duration.ofSeconds(5), Duration.ofMinutes(5));
+    }
+
+    /**
+     * Opens a store in the data folder of the plugin, or gets it if it is already open.
+     * <p>
+     * The intervals are ignored if the store is already open. The file is opened off the calling thread,
+     * see {@link #store(Plugin, String)}.
+     * </p>
+     *
+     * @param plugin             the plugin owning the store
+     * @param name               the name of the store file, may only contain lowercase letters, digits, {@code _}, {@code -} and {@code .}
+     * @param flushInterval      how often the changes are flushed to the file
+     * @param checkpointInterval how often a checkpoint is created
+     * @return the store
+     * @throws IllegalArgumentException if the name is invalid or an interval is not positive
+     * @throws IllegalStateException    if the plugin is not enabled
+     */
+    static CustomAdvancementStore store(final Plugin plugin,
+                                        final String name,
+                                        final Duration flushInterval,
+                                        final Duration checkpointInterval) {
+        return CustomAdvancementStoreImpl.open(plugin, name, flushInterval, checkpointInterval);
+    }
+
+    /**
+     * Opens the store of a {@link CustomAdvancementTab}, or gets it if it is already open.
+     * <p>
+     * The store is named after the key of the tab's root advancement.
+     * </p>
+     *
+     * @param tab the tab whose store is opened
+     * @return the store
+     * @see #store(Plugin, String)
+     */
+    static CustomAdvancementStore store(final CustomAdvancementTab tab) {
+        final NamespacedKey key = tab.root().key();
+        return store(tab.plugin(), key.getNamespace() + "." + key.getKey().replace('/', '.'));
+    }
+
+    /**
+     * Gets the name of this store.
+     *
+     * @return the name of the store file
+     */
+    String name();
+
+    /**
+     * Gets a value of the given player.
+     *
+     * @param player the unique id of the player
+     * @param field  the name of the value
+     * @return the value, {@code 0} if it has never been set
+     * @throws IllegalStateException if this store has been closed
+     */
+    long get(final UUID player, final String field);
+
+    /**
+     * Gets a value of the given player.
+     * <p>
+     * See {@link #get(UUID, String)}.
+     *
+     * @param player the player
+     * @param field  the name of the value
+     * @return the value, {@code 0} if it has never been set
+     * @throws IllegalStateException if this store has been closed
+     */
+    default long get(final Player player, final String field) {
+        return get(player.getUniqueId(), field);
+    }
+
+    /**
+     * Sets a value of the given player.
+     *
+     * @param player the unique id of the player
+     * @param field  the name of the value
+     * @param value  the new value
+     * @throws IllegalStateException if this store has been closed or is full
+     */
+    void set(final UUID player, final String field, final long value);
+
+    /**
+     * Sets a value of the given player.
+     * <p>
+     * See {@link #set(UUID, String, long)}.
+     *
+     * @param player the player
+     * @param field  the name of the value
+     * @param value  the new value
+     * @throws IllegalStateException if this store has been closed or is full
+     */
+    default void set(final Player player, final String field, final long value) {
+        set(player.getUniqueId(), field, value);
+    }
+
+    /**
+     * Atomically adds an amount to a value of the given player.
+     *
+     * @param player the unique id of the player
+     * @param field  the name of the value
+     * @param amount the amount to add, may be negative
+     * @return the new value
+     * @throws IllegalStateException if this store has been closed or is full
+     */
+    long add(final UUID player, final String field, final long amount);
+
+    /**
+     * Atomically adds an amount to a value of the given player.
+     * <p>
+     * See {@link #add(UUID, String, long)}.
+     *
+     * @param player the player
+     * @param field  the name of the value
+     * @param amount the amount to add, may be negative
+     * @return the new value
+     * @throws IllegalStateException if this store has been closed or is full
+     */
+    default long add(final Player player, final String field, final long amount) {
+        return add(player.getUniqueId(), field, amount);
+    }
+
+    /**
+     * Creates a checkpoint of this store.
+     * <p>
+     * The store is copied in memory on the calling thread, the copy is written to the disk asynchronously.
+     *
+     * @return a future completed once the checkpoint is written
+     * @throws IllegalStateException if this store has been closed
+     */
+    CompletableFuture<Void> checkpoint();
+
+    /**
+     * Flushes this store, creates a final checkpoint and closes the store.
+     * <p>
+     * Calling this method on an already closed store has no effect.
+     * </p>
+     */
+    void close();
+}
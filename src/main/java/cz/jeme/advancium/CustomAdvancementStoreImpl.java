@@ -0,0 +1,642 @@
+package cz.jeme.advancium;
+
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+/**
+ * An open-addressing hash table of fixed-size records in a memory-mapped file.
+ * <p>
+ * The file starts with a 64-byte header pointing to the current table. The table starts with a 64-byte header
+ * holding its capacity and size, followed by the record slots. Each record is 32 bytes:
+ * the most and least significant bits of the player's {@link UUID}, the hash of the field name
+ * (never {@code 0}, which marks an empty slot) and the value. The hash is written last with release semantics,
+ * so lock-free readers never see a partially written record.
+ * <p>
+ * Reads are optimistic and never lock, updates of existing records share a read lock and update the value atomically.
+ * Only inserting a new record takes the write lock. Once the table is half full, a table of double the capacity
+ * is mapped behind it off the calling thread, the records are copied into it in memory and the file header is
+ * switched to it once it is written to the disk. The old table stays intact until then, so a crash during
+ * the growth leaves a consistent file. Inserts that find the table full before then wait for the growth.
+ * The space of old tables is reclaimed the next time the store is opened.
+ * <p>
+ * Checkpoints are compact copies of the file with a CRC32C checksum of the table. A store file
+ * that was not closed cleanly is checked for records that cannot be reached from their slot
+ * and for a size mismatch, and is restored from the checkpoint if it is inconsistent.
+ * </p>
+ */
+final class CustomAdvancementStoreImpl implements CustomAdvancementStore {
+    private static final Pattern NAME_PATTERN = Pattern.compile("[a-z0-9_.-]+");
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long MAGIC = 0x45524F5453564441L; // "ADVSTORE"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int TABLE_HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final int PAGE_SIZE = 4096;
+    private static final int INITIAL_CAPACITY = 1 << 14;
+    private static final int MAX_CAPACITY = 1 << 25; // keeps the mapping below 2 GiB
+
+    // file header
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int STATE_OFFSET = 12;
+    private static final int TABLE_POSITION_OFFSET = 16;
+    /**
+     * The CRC32C of everything after the header, only set in checkpoints.
+     */
+    private static final int CHECKSUM_OFFSET = 24;
+
+    // table header
+    private static final int CAPACITY_OFFSET = 0;
+    private static final int SIZE_OFFSET = 8;
+
+    private static final int STATE_CLEAN = 0;
+    private static final int STATE_OPEN = 1;
+
+    private final Plugin plugin;
+    private final String name;
+    private final Path file;
+    private final Path checkpointFile;
+    private final Duration flushInterval;
+    private final Duration checkpointInterval;
+    // completed once the file is mapped, the fields below are set before
+    private final CompletableFuture<Void> opened = new CompletableFuture<>();
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private Runnable cancelFlush;
+    private Runnable cancelCheckpoint;
+    private final StampedLock lock = new StampedLock();
+    // the growth in progress, if any
+    private final AtomicReference<CompletableFuture<Void>> growth = new AtomicReference<>();
+    private volatile Table table;
+    private volatile boolean closed = false;
+
+    /**
+     * A table mapped at the position in the file, the buffer starts with the table header.
+     */
+    private record Table(MappedByteBuffer buffer, long position, int mask) {
+    }
+
+    private CustomAdvancementStoreImpl(final Plugin plugin,
+                                       final String name,
+                                       final Duration flushInterval,
+                                       final Duration checkpointInterval) {
+        this.plugin = plugin;
+        this.name = name;
+        this.flushInterval = flushInterval;
+        this.checkpointInterval = checkpointInterval;
+        file = directory(plugin).resolve(name + ".store");
+        checkpointFile = directory(plugin).resolve(name + ".checkpoint");
+    }
+
+    private static Path directory(final Plugin plugin) {
+        return plugin.getDataFolder().toPath().resolve("advancium");
+    }
+
+    /**
+     * Checks the file, restores or compacts it if needed and maps it, then starts the periodic tasks.
+     * <p>
+     * Runs off the thread opening the store, the store methods wait for it to finish.
+     * </p>
+     */
+    private void open() {
+        try {
+            Files.createDirectories(file.getParent());
+            if (!isValid(file, false)) restore();
+            else compact();
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            final boolean created = channel.size() == 0;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                table = map(HEADER_SIZE, INITIAL_CAPACITY);
+                table.buffer().putLong(CAPACITY_OFFSET, INITIAL_CAPACITY);
+                header.putLong(MAGIC_OFFSET, MAGIC);
+                header.putInt(VERSION_OFFSET, VERSION);
+                header.putLong(TABLE_POSITION_OFFSET, HEADER_SIZE);
+            } else {
+                final long position = header.getLong(TABLE_POSITION_OFFSET);
+                table = map(position, Math.toIntExact(read(channel, position, TABLE_HEADER_SIZE).getLong(CAPACITY_OFFSET)));
+            }
+            header.putInt(STATE_OFFSET, STATE_OPEN);
+            cancelFlush = TaskScheduler.runAsyncTimer(plugin, this::flush, flushInterval);
+            cancelCheckpoint = TaskScheduler.runAsyncTimer(plugin, () -> {
+                try {
+                    writeCheckpoint();
+                } catch (final IOException | RuntimeException e) {
+                    plugin.getLogger().log(Level.WARNING, "Failed to checkpoint store: \"" + file + "\"", e);
+                }
+            }, checkpointInterval);
+        } catch (final IOException | RuntimeException e) {
+            if (cancelFlush != null) cancelFlush.run();
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (final IOException ignored) {
+                }
+            }
+            final RuntimeException exception = new RuntimeException("Failed to open store: \"" + file + "\"", e);
+            plugin.getLogger().log(Level.SEVERE, exception.getMessage(), e);
+            closed = true;
+            remove();
+            opened.completeExceptionally(exception);
+            return;
+        }
+        opened.complete(null);
+    }
+
+    /**
+     * Waits until the file is mapped, only blocks when the store is used right after it was opened.
+     *
+     * @throws RuntimeException if the store could not be opened
+     */
+    private void awaitOpen() {
+        if (opened.isDone() && !opened.isCompletedExceptionally()) return;
+        try {
+            opened.join();
+        } catch (final CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private static long tableSize(final long capacity) {
+        return TABLE_HEADER_SIZE + capacity * RECORD_SIZE;
+    }
+
+    private Table map(final long position, final int capacity) throws IOException {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, tableSize(capacity));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return new Table(buffer, position, capacity - 1);
+    }
+
+    private static ByteBuffer read(final FileChannel channel, final long position, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, position + buffer.position()) < 0) break;
+        return buffer;
+    }
+
+    /**
+     * Checks the structure of a store file.
+     *
+     * @param checkpoint whether the file is a checkpoint, whose checksum is verified
+     */
+    private static boolean isValid(final Path file, final boolean checkpoint) throws IOException {
+        if (!Files.exists(file)) return false;
+        final long fileSize = Files.size(file);
+        if (fileSize < HEADER_SIZE + TABLE_HEADER_SIZE) return false;
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            final long position = header.getLong(TABLE_POSITION_OFFSET);
+            if (header.getLong(MAGIC_OFFSET) != MAGIC
+                || header.getInt(VERSION_OFFSET) != VERSION
+                || position < HEADER_SIZE || position > fileSize - TABLE_HEADER_SIZE)
+                return false;
+            final ByteBuffer tableHeader = read(channel, position, TABLE_HEADER_SIZE);
+            final long capacity = tableHeader.getLong(CAPACITY_OFFSET);
+            final long size = tableHeader.getLong(SIZE_OFFSET);
+            if (capacity <= 0 || capacity > MAX_CAPACITY || Long.bitCount(capacity) != 1
+                || size < 0 || size >= capacity
+                || fileSize < position + tableSize(capacity))
+                return false;
+            if (checkpoint) {
+                final CRC32C crc = new CRC32C();
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, fileSize - HEADER_SIZE));
+                return header.getLong(CHECKSUM_OFFSET) == crc.getValue();
+            }
+            if (header.getInt(STATE_OFFSET) == STATE_CLEAN) return true;
+            // not closed cleanly, the operating system may have written only some of the changes
+            final ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, position, tableSize(capacity))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            return isConsistent(table, (int) capacity - 1, size);
+        }
+    }
+
+    /**
+     * Checks that every record can be found from its slot and that the table holds as many records as its size says.
+     */
+    private static boolean isConsistent(final ByteBuffer table, final int mask, final long size) {
+        long count = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            final int offset = offset(slot);
+            final long hash = table.getLong(offset + 16);
+            if (hash == 0) continue;
+            count++;
+            for (int s = slot(table.getLong(offset), table.getLong(offset + 8), hash, mask); s != slot; s = s + 1 & mask)
+                if (table.getLong(offset(s) + 16) == 0) return false;
+        }
+        return count == size;
+    }
+
+    private void restore() throws IOException {
+        final boolean existed = Files.exists(file);
+        if (isValid(checkpointFile, true)) {
+            Files.copy(checkpointFile, file, StandardCopyOption.REPLACE_EXISTING);
+            if (existed) plugin.getLogger().warning("Store \"" + file + "\" is corrupted, restored from the last checkpoint");
+        } else {
+            Files.deleteIfExists(file);
+            if (existed) plugin.getLogger().warning("Store \"" + file + "\" is corrupted and has no checkpoint, starting empty");
+        }
+    }
+
+    /**
+     * Drops the space of the old tables left in the file by growing.
+     */
+    private void compact() throws IOException {
+        final ByteBuffer image;
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long position = read(channel, 0, HEADER_SIZE).getLong(TABLE_POSITION_OFFSET);
+            if (position == HEADER_SIZE) return;
+            final long capacity = read(channel, position, TABLE_HEADER_SIZE).getLong(CAPACITY_OFFSET);
+            image = image(read(channel, position, Math.toIntExact(tableSize(capacity))));
+        }
+        write(file, image);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    private static long hash(final String field) {
+        long hash = 0xCBF29CE484222325L; // FNV-1a
+        for (int i = 0; i < field.length(); i++) {
+            hash ^= field.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int slot(final long msb, final long lsb, final long hash, final int mask) {
+        long h = msb ^ Long.rotateLeft(lsb, 32) ^ hash; // fmix64
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static int offset(final int slot) {
+        return TABLE_HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    /**
+     * Finds the slot of a record.
+     *
+     * @return the slot of the record, or {@code -(slot + 1)} of the empty slot where it belongs
+     */
+    private static int find(final Table table, final long msb, final long lsb, final long hash) {
+        final ByteBuffer buffer = table.buffer();
+        int slot = slot(msb, lsb, hash, table.mask());
+        // bounded, so an optimistic read racing with an insert always terminates
+        for (int i = 0; i <= table.mask(); i++) {
+            final int offset = offset(slot);
+            final long h = (long) LONGS.getAcquire(buffer, offset + 16);
+            if (h == 0) return -(slot + 1);
+            if (h == hash && buffer.getLong(offset) == msb && buffer.getLong(offset + 8) == lsb) return slot;
+            slot = slot + 1 & table.mask();
+        }
+        return -(table.mask() + 2); // never returned to a validated read
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("This store has been closed");
+    }
+
+    @Override
+    public long get(final UUID player, final String field) {
+        awaitOpen();
+        ensureOpen();
+        final long msb = player.getMostSignificantBits();
+        final long lsb = player.getLeastSignificantBits();
+        final long hash = hash(field);
+        long stamp = lock.tryOptimisticRead();
+        long value = get(table, msb, lsb, hash);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = get(table, msb, lsb, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    private static long get(final Table table, final long msb, final long lsb, final long hash) {
+        final int slot = find(table, msb, lsb, hash);
+        return slot < 0 ? 0 : (long) LONGS.getVolatile(table.buffer(), offset(slot) + 24);
+    }
+
+    @Override
+    public void set(final UUID player, final String field, final long value) {
+        update(player, field, value, false);
+    }
+
+    @Override
+    public long add(final UUID player, final String field, final long amount) {
+        return update(player, field, amount, true);
+    }
+
+    private long update(final UUID player, final String field, final long operand, final boolean add) {
+        awaitOpen();
+        final long msb = player.getMostSignificantBits();
+        final long lsb = player.getLeastSignificantBits();
+        final long hash = hash(field);
+        long stamp = lock.readLock();
+        try {
+            ensureOpen();
+            final Table table = this.table;
+            final int slot = find(table, msb, lsb, hash);
+            if (slot >= 0) return update(table, slot, operand, add);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        while (true) {
+            final boolean full;
+            stamp = lock.writeLock();
+            try {
+                ensureOpen();
+                final Table table = this.table;
+                final int slot = find(table, msb, lsb, hash);
+                if (slot >= 0) return update(table, slot, operand, add); // inserted in the meantime
+                final int capacity = table.mask() + 1;
+                final long size = table.buffer().getLong(SIZE_OFFSET);
+                // the slack left for the inserts made while a larger table is prepared
+                full = size >= capacity - (capacity >>> 3);
+                if (full && capacity >= MAX_CAPACITY)
+                    throw new IllegalStateException("The store \"" + file + "\" is full");
+                if (!full) {
+                    insert(table, -(slot + 1), msb, lsb, hash, operand);
+                    table.buffer().putLong(SIZE_OFFSET, size + 1);
+                    if (size + 1 << 1 <= capacity || capacity >= MAX_CAPACITY) return operand;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            // started without holding the lock, the growth takes it
+            final CompletableFuture<Void> growth = growAsync();
+            if (!full) return operand;
+            // the growth fell behind the inserts, wait for the larger table
+            try {
+                growth.join();
+            } catch (final CompletionException e) {
+                throw new IllegalStateException("The store \"" + file + "\" is full and could not grow", e.getCause());
+            }
+        }
+    }
+
+    private static long update(final Table table, final int slot, final long operand, final boolean add) {
+        final int offset = offset(slot) + 24;
+        if (add) return (long) LONGS.getAndAdd(table.buffer(), offset, operand) + operand;
+        LONGS.setVolatile(table.buffer(), offset, operand);
+        return operand;
+    }
+
+    private static void insert(final Table table, final int slot, final long msb, final long lsb, final long hash, final long value) {
+        final int offset = offset(slot);
+        table.buffer().putLong(offset, msb);
+        table.buffer().putLong(offset + 8, lsb);
+        table.buffer().putLong(offset + 24, value);
+        LONGS.setRelease(table.buffer(), offset + 16, hash); // publishes the record
+    }
+
+    /**
+     * Starts doubling the capacity of the table off the calling thread, unless it is already growing.
+     *
+     * @return the future of the growth in progress, completed once it has finished
+     */
+    private CompletableFuture<Void> growAsync() {
+        final CompletableFuture<Void> started = new CompletableFuture<>();
+        final CompletableFuture<Void> current = growth.compareAndExchange(null, started);
+        if (current != null) return current;
+        try {
+            TaskScheduler.runAsync(plugin, () -> grow(started));
+        } catch (final RuntimeException e) {
+            growth.set(null);
+            started.completeExceptionally(e);
+            plugin.getLogger().log(Level.WARNING, "Failed to grow store: \"" + file + "\"", e);
+        }
+        return started;
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     * <p>
+     * The new table is mapped behind the current one and its pages are loaded without holding the lock,
+     * only copying the records in memory blocks the writers. The file header is switched to the new table
+     * once it is written to the disk, until then the file still points to the intact old table.
+     * </p>
+     */
+    private void grow(final CompletableFuture<Void> future) {
+        Throwable failure = null;
+        try {
+            final Table old = table;
+            final int capacity = old.mask() + 1 << 1;
+            final long position = old.position() + tableSize(old.mask() + 1) + PAGE_SIZE - 1 & -PAGE_SIZE;
+            final Table next = map(position, capacity);
+            next.buffer().load();
+            long stamp = lock.writeLock();
+            try {
+                if (closed || table != old) return;
+                for (int slot = 0; slot <= old.mask(); slot++) {
+                    final int offset = offset(slot);
+                    final long hash = old.buffer().getLong(offset + 16);
+                    if (hash == 0) continue;
+                    final long msb = old.buffer().getLong(offset);
+                    final long lsb = old.buffer().getLong(offset + 8);
+                    final long value = (long) LONGS.getVolatile(old.buffer(), offset + 24);
+                    insert(next, -(find(next, msb, lsb, hash) + 1), msb, lsb, hash, value);
+                }
+                next.buffer().putLong(CAPACITY_OFFSET, capacity);
+                next.buffer().putLong(SIZE_OFFSET, old.buffer().getLong(SIZE_OFFSET));
+                table = next;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            next.buffer().force();
+            stamp = lock.readLock();
+            try {
+                if (closed || table != next) return;
+                header.putLong(TABLE_POSITION_OFFSET, position);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            header.force();
+        } catch (final IOException | RuntimeException e) {
+            failure = e;
+            if (!closed) plugin.getLogger().log(Level.WARNING, "Failed to grow store: \"" + file + "\"", e);
+        } finally {
+            // cleared first, so the waiting inserts may start another growth
+            growth.set(null);
+            if (failure == null) future.complete(null);
+            else future.completeExceptionally(failure);
+        }
+    }
+
+    private void flush() {
+        if (closed) return;
+        try {
+            table.buffer().force();
+            header.force();
+        } catch (final UncheckedIOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to flush store: \"" + file + "\"", e);
+        }
+    }
+
+    /**
+     * Copies the records, the structure of the table cannot change during the copy,
+     * but existing values may still be updated.
+     */
+    private ByteBuffer snapshot() {
+        awaitOpen();
+        final long stamp = lock.readLock();
+        try {
+            ensureOpen();
+            return image(table.buffer());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Creates a compact checkpoint image of a table, with the table right behind the header.
+     */
+    private static ByteBuffer image(final ByteBuffer table) {
+        final int size = table.capacity();
+        final ByteBuffer image = ByteBuffer.allocate(HEADER_SIZE + size).order(ByteOrder.LITTLE_ENDIAN);
+        // volatile reads of the live mapping, the tables read from a file are not shared
+        for (int offset = 0; offset < size; offset += 8)
+            image.putLong(HEADER_SIZE + offset, table.isDirect() ? (long) LONGS.getVolatile(table, offset) : table.getLong(offset));
+        final CRC32C crc = new CRC32C();
+        crc.update(image.slice(HEADER_SIZE, size));
+        image.putLong(MAGIC_OFFSET, MAGIC);
+        image.putInt(VERSION_OFFSET, VERSION);
+        image.putInt(STATE_OFFSET, STATE_CLEAN);
+        image.putLong(TABLE_POSITION_OFFSET, HEADER_SIZE);
+        image.putLong(CHECKSUM_OFFSET, crc.getValue());
+        return image;
+    }
+
+    private void writeCheckpoint() throws IOException {
+        write(checkpointFile, snapshot());
+    }
+
+    private static void write(final Path file, final ByteBuffer image) throws IOException {
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (final FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+        )) {
+            while (image.hasRemaining()) channel.write(image);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public CompletableFuture<Void> checkpoint() {
+        final ByteBuffer snapshot = snapshot();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        TaskScheduler.runAsync(plugin, () -> {
+            try {
+                write(checkpointFile, snapshot);
+                future.complete(null);
+            } catch (final IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void close() {
+        try {
+            opened.join();
+        } catch (final CompletionException e) {
+            return; // never opened, already removed
+        }
+        if (closed) return;
+        cancelFlush.run();
+        cancelCheckpoint.run();
+        final long stamp = lock.writeLock();
+        try {
+            if (closed) return;
+            try {
+                write(checkpointFile, image(table.buffer())); // the write lock is already held
+                table.buffer().force();
+                header.putLong(TABLE_POSITION_OFFSET, table.position());
+                header.putInt(STATE_OFFSET, STATE_CLEAN);
+                header.force();
+                channel.close();
+            } catch (final IOException | UncheckedIOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to close store: \"" + file + "\"", e);
+            }
+            closed = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        remove();
+    }
+
+    private void remove() {
+        final Map<String, CustomAdvancementStoreImpl> stores = PLUGIN_STORES.get(plugin.getName());
+        if (stores != null) stores.remove(name, this);
+    }
+
+    private static final Map<String, Map<String, CustomAdvancementStoreImpl>> PLUGIN_STORES = new ConcurrentHashMap<>();
+
+    @ApiStatus.Internal
+    static CustomAdvancementStoreImpl open(final Plugin plugin,
+                                           final String name,
+                                           final Duration flushInterval,
+                                           final Duration checkpointInterval) {
+        if (!NAME_PATTERN.matcher(name).matches())
+            throw new IllegalArgumentException("Invalid store name: \"" + name + "\"");
+        if (flushInterval.isNegative() || flushInterval.isZero() || checkpointInterval.isNegative() || checkpointInterval.isZero())
+            throw new IllegalArgumentException("The intervals must be positive");
+        // the event manager closes the stores when the plugin is disabled, and rejects disabled plugins
+        EventManager.forPlugin(plugin);
+        return PLUGIN_STORES.computeIfAbsent(plugin.getName(), $ -> new ConcurrentHashMap<>())
+                .computeIfAbsent(name, $ -> {
+                    final CustomAdvancementStoreImpl store = new CustomAdvancementStoreImpl(plugin, name, flushInterval, checkpointInterval);
+                    // the file is checked and mapped off the calling thread
+                    TaskScheduler.runAsync(plugin, store::open);
+                    return store;
+                });
+    }
+
+    @ApiStatus.Internal
+    static void closeAll(final Plugin plugin) {
+        final Map<String, CustomAdvancementStoreImpl> stores = PLUGIN_STORES.get(plugin.getName());
+        if (stores == null) return;
+        for (final CustomAdvancementStoreImpl store : stores.values())
+            if (store.plugin == plugin) store.close();
+    }
+}
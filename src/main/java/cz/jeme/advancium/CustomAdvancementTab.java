@@ -2,9 +2,17 @@ package cz.jeme.advancium;
 
 import net.kyori.adventure.key.KeyPattern;
 import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Unmodifiable;
 
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Represents a custom advancement tab.
@@ -25,6 +33,72 @@ public sealed interface CustomAdvancementTab extends Keyed permits CustomAdvance
         return new CustomAdvancementTabImpl.Builder(plugin);
     }
 
+    /**
+     * Loads a tab defined in a YAML or JSON file.
+     * <p>
+     * The file is read, validated and turned into advancement builders off the main thread,
+     * only the final registration of the tab runs on the main thread (or the global region on Folia).
+     * The tab is named after the file, the key of its root is {@code <plugin>:<name>/root}
+     * and the keys of its advancements are {@code <plugin>:<name>/<id>}.
+     * Titles and descriptions use the MiniMessage format.
+     * </p>
+     * Example ({@code quests.yml}):
+     * <pre>{@code
+     * background: minecraft:textures/gui/advancements/backgrounds/stone.png
+     * visibility: quests.view   # permission, optional
+     * root:
+     *   display:
+     *     icon: grass_block
+     *     title: "<green>Quests"
+     *     description: Complete quests to earn rewards
+     * advancements:
+     *   miner:
+     *     parent: root          # the root or another advancement of the file, defaults to the root
+     *     display:
+     *       icon: iron_pickaxe
+     *       title: Miner
+     *       frame: goal         # task, goal or challenge
+     *       show-toast: true
+     *       announce-to-chat: true
+     *       hidden: false
+     *     counters:
+     *       blocks: { threshold: 1000, milestones: 4 }
+     *     rewards:
+     *       experience: 50
+     *       recipes: [minecraft:iron_pickaxe]
+     *       loot-tables: [minecraft:chests/simple_dungeon]
+     *       loot: [diamond, { item: emerald, amount: 16 }]
+     *   collector:
+     *     parent: miner
+     *     requirements: [[wood, stone], [iron]]   # or criteria: [wood, stone, iron]
+     * }</pre>
+     *
+     * @param plugin the plugin owning the tab
+     * @param file   the definition file, its name may only contain lowercase letters, digits, {@code _}, {@code -} and {@code .}
+     *               and it must end with {@code .yml}, {@code .yaml} or {@code .json}
+     * @return a future completed with the loaded tab, or completed exceptionally if the file could not be read
+     * or the definition is invalid
+     */
+    static CompletableFuture<CustomAdvancementTab> loadDefinition(final Plugin plugin, final Path file) {
+        return TabDefinitions.load(plugin, List.of(file)).thenApply(List::getFirst);
+    }
+
+    /**
+     * Loads the tabs defined in the YAML and JSON files of a directory.
+     * <p>
+     * The files are read and validated in parallel off the main thread, each file defines one tab,
+     * see {@link #loadDefinition(Plugin, Path)} for the format. If any file is invalid, no tab is loaded.
+     * </p>
+     *
+     * @param plugin    the plugin owning the tabs
+     * @param directory the directory containing the definition files, subdirectories are not searched
+     * @return a future completed with the loaded tabs ordered by file name, or completed exceptionally
+     * if the directory or a file could not be read or a definition is invalid
+     */
+    static CompletableFuture<List<CustomAdvancementTab>> loadDefinitions(final Plugin plugin, final Path directory) {
+        return TabDefinitions.load(plugin, directory);
+    }
+
     /**
      * Gets the root advancement of this tab.
      * <p>
@@ -54,6 +128,102 @@ public sealed interface CustomAdvancementTab extends Keyed permits CustomAdvance
      */
     Plugin plugin();
 
+    /**
+     * Gets all advancements of this tab, including the {@link #root()}.
+     * <p>
+     * Parents always precede their children.
+     * </p>
+     *
+     * @return an unmodifiable {@link List} of the advancements of this tab
+     */
+    @Unmodifiable
+    List<CustomAdvancement> advancements();
+
+    /**
+     * Completes advancements of this tab for multiple players.
+     * <p>
+     * The grants are queued and applied during the next server tick together with all other grants
+     * and revokes queued for the same players, see {@link CustomAdvancement#grant(Collection, Collection)}.
+     *
+     * @param players      the players to complete the advancements for
+     * @param advancements the advancements to complete
+     * @throws IllegalArgumentException if any of the advancements does not belong to this tab
+     */
+    void grant(final Collection<? extends Player> players, final Collection<? extends CustomAdvancement> advancements);
+
+    /**
+     * Completes all advancements of this tab for multiple players.
+     * <p>
+     * The grants are queued and applied during the next server tick,
+     * see {@link #grant(Collection, Collection)}.
+     *
+     * @param players the players to complete the advancements for
+     */
+    default void grant(final Collection<? extends Player> players) {
+        grant(players, advancements());
+    }
+
+    /**
+     * Revokes all criteria of advancements of this tab from multiple players.
+     * <p>
+     * The revokes are queued and applied during the next server tick together with all other grants
+     * and revokes queued for the same players, see {@link CustomAdvancement#grant(Collection, Collection)}.
+     *
+     * @param players      the players to revoke the advancements from
+     * @param advancements the advancements to revoke
+     * @throws IllegalArgumentException if any of the advancements does not belong to this tab
+     */
+    void revoke(final Collection<? extends Player> players, final Collection<? extends CustomAdvancement> advancements);
+
+    /**
+     * Revokes all advancements of this tab from multiple players.
+     * <p>
+     * The revokes are queued and applied during the next server tick,
+     * see {@link #revoke(Collection, Collection)}.
+     *
+     * @param players the players to revoke the advancements from
+     */
+    default void revoke(final Collection<? extends Player> players) {
+        revoke(players, advancements());
+    }
+
+    /**
+     * Checks whether this tab should be visible to the given player.
+     *
+     * @param player the player to check
+     * @return {@code true} if the player passes the visibility condition of this tab
+     * or the tab has no visibility condition, otherwise {@code false}
+     * @see Builder#visibility(Predicate)
+     */
+    boolean isVisible(final Player player);
+
+    /**
+     * Re-evaluates the visibility condition of this tab for the given player.
+     * <p>
+     * If the visibility changed, the root advancement is granted or revoked, and the server sends the player
+     * only the advancements that appeared or disappeared. This has no effect if the tab has no visibility condition.
+     *
+     * @param player the player whose visibility is updated
+     * @see Builder#visibility(Predicate)
+     */
+    void updateVisibility(final Player player);
+
+    /**
+     * Re-evaluates the visibility condition of this tab for all online players.
+     * <p>
+     * See {@link #updateVisibility(Player)}.
+     */
+    void updateVisibility();
+
+    /**
+     * Unloads this tab with all its advancements.
+     * <p>
+     * This is equivalent to calling {@link CustomAdvancement#unload()} on the {@link #root()}.
+     * All tabs of a plugin are unloaded automatically when the plugin is disabled,
+     * before its {@code onDisable} is called.
+     */
+    void unload();
+
     /**
      * Builder for creating and configuring instances of {@link CustomAdvancementTab}.
      */
@@ -97,13 +267,116 @@ public sealed interface CustomAdvancementTab extends Keyed permits CustomAdvance
             return background(Objects.requireNonNull(NamespacedKey.fromString(background), "Invalid key: \"" + background + "\""));
         }
 
+        /**
+         * Sets the condition under which the tab is visible to a player.
+         * <p>
+         * The server sends a player only the advancement trees in which the player has completed an advancement.
+         * A tab with a visibility condition therefore manages the completion of its root advancement:
+         * the root is granted to the players passing the condition and revoked from the others,
+         * so players do not download the tabs they cannot see. The condition is evaluated when a player joins,
+         * when the tab is loaded, and when {@link CustomAdvancementTab#updateVisibility(Player)} is called.
+         * <p>
+         * Granting the root is not an achievement of the player, so the root of such a tab is loaded
+         * without a toast, a chat announcement and rewards, and its
+         * {@link CustomAdvancement.Builder#onCriterionGranted(java.util.function.BiConsumer) criterion}
+         * and {@link CustomAdvancement.Builder#onAdvancementCompleted(java.util.function.BiConsumer) completion}
+         * handlers are not called for the grants showing the tab.
+         * Advancements the player has completed stay visible (together with their ancestors)
+         * even if the tab is hidden.
+         * <p>
+         * <strong>Default:</strong> no condition, the completion of the root advancement is left to the plugin
+         * </p>
+         *
+         * @param visibility the condition a player must pass to see the tab
+         * @return this builder instance for chaining
+         */
+        Builder visibility(final Predicate<? super Player> visibility);
+
+        /**
+         * Makes the tab visible only to the players with the given permission.
+         * <p>
+         * Permission changes are not detected automatically,
+         * call {@link CustomAdvancementTab#updateVisibility(Player)} after changing them.
+         * See {@link #visibility(Predicate)}.
+         * </p>
+         *
+         * @param permission the permission a player must have to see the tab
+         * @return this builder instance for chaining
+         */
+        default Builder visibility(final String permission) {
+            return visibility(player -> player.hasPermission(permission));
+        }
+
+        /**
+         * Collects the root advancement and every advancement bound to this tab into a {@link CustomAdvancementBatch}.
+         * <p>
+         * The tab is then loaded to the server only when {@link CustomAdvancementBatch#load()} is called.
+         * </p>
+         *
+         * @param batch the batch to collect the advancements of this tab into
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the batch has already been loaded
+         * @see CustomAdvancementBatch
+         */
+        Builder batch(final CustomAdvancementBatch batch);
+
         /**
          * Builds and registers the {@link CustomAdvancementTab}.
          * <p>
          * This also loads the tab into the server, making it visible in the game.
+         * If a batch was set using {@link #batch(CustomAdvancementBatch)}, the tab is loaded once the batch is loaded.
          *
          * @return the built {@link CustomAdvancementTab}
          */
         CustomAdvancementTab buildAndLoad();
+
+        /**
+         * Builds the {@link CustomAdvancementTab}, lets the provided consumer build all its advancements,
+         * and then loads the whole tab to the server in a single {@link CustomAdvancementBatch}.
+         * <p>
+         * If no batch was set using {@link #batch(CustomAdvancementBatch)}, a new one is created.
+         * If the consumer or the loading fails, the tab is unloaded with all advancements built so far
+         * and the exception is rethrown.
+         * </p>
+         *
+         * @param advancements a {@link Consumer} that builds the advancements of the tab
+         * @return the built and loaded {@link CustomAdvancementTab}
+         * @throws IllegalStateException if the batch set using {@link #batch(CustomAdvancementBatch)} has already been loaded
+         */
+        CustomAdvancementTab buildAndLoad(final Consumer<CustomAdvancementTab> advancements);
+
+        /**
+         * Builds the {@link CustomAdvancementTab}, lets the provided consumer build all its advancements,
+         * and then loads the whole tab to the server using {@link CustomAdvancementBatch#loadAsync()}.
+         * <p>
+         * The tab and its advancements are built on the calling thread, which must be the main thread.
+         * Their JSON is generated off the main thread and the tab must not be used until the returned future completes.
+         * If no batch was set using {@link #batch(CustomAdvancementBatch)}, a new one is created.
+         * If the consumer fails, the tab is unloaded and the exception is rethrown. If the loading fails,
+         * the tab is unloaded before the returned future completes exceptionally.
+         * </p>
+         *
+         * @param advancements a {@link Consumer} that builds the advancements of the tab
+         * @return a {@link CompletableFuture} completed with the loaded {@link CustomAdvancementTab} on the main thread
+         * @throws IllegalStateException if the batch set using {@link #batch(CustomAdvancementBatch)} has already been loaded
+         */
+        CompletableFuture<CustomAdvancementTab> buildAndLoadAsync(final Consumer<CustomAdvancementTab> advancements);
+
+        /**
+         * Builds the {@link CustomAdvancementTab}, lets the provided consumer build all its advancements,
+         * and then loads the whole tab in place of a previously loaded tab.
+         * <p>
+         * Only the advancements whose definition changed are replaced on the server,
+         * see {@link CustomAdvancementBatch#reload(CustomAdvancementTab)}.
+         * If no batch was set using {@link #batch(CustomAdvancementBatch)}, a new one is created.
+         * If the consumer fails, the new tab is unloaded, the previous tab stays loaded and the exception is rethrown.
+         * </p>
+         *
+         * @param previous     the previously loaded tab to replace
+         * @param advancements a {@link Consumer} that builds the advancements of the tab
+         * @return the built and loaded {@link CustomAdvancementTab}
+         * @throws IllegalStateException if the batch set using {@link #batch(CustomAdvancementBatch)} has already been loaded
+         */
+        CustomAdvancementTab buildAndReload(final CustomAdvancementTab previous, final Consumer<CustomAdvancementTab> advancements);
     }
 }
\ No newline at end of file
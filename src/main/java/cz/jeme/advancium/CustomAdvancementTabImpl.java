@@ -1,23 +1,50 @@
 package cz.jeme.advancium;
 
+import org.bukkit.Bukkit;
 import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 final class CustomAdvancementTabImpl implements CustomAdvancementTab {
     private final Plugin plugin;
     private final CustomAdvancement root;
     private final NamespacedKey background;
+    private final @Nullable Predicate<? super Player> visibility;
+    // players whose root criteria are being granted to show them the tab
+    private final Set<UUID> visibilityGrants = ConcurrentHashMap.newKeySet();
 
     private CustomAdvancementTabImpl(final Builder builder) {
         plugin = builder.plugin;
         background = builder.background;
+        visibility = builder.visibility;
         root = ((BaseCustomAdvancement.Builder) Objects.requireNonNull(
                 builder.rootBuilder,
                 "You must specify root advancement when creating an advancement tab"
-        )).buildRoot(this);
+        )).buildRoot(this, builder.batch);
+        if (visibility != null) {
+            EventManager.forPlugin(plugin).subscribe(
+                    PlayerJoinEvent.class,
+                    EventPriority.MONITOR,
+                    root,
+                    event -> updateVisibility(event.getPlayer())
+            );
+            updateVisibility();
+        }
     }
 
     @Override
@@ -35,6 +62,82 @@ final class CustomAdvancementTabImpl implements CustomAdvancementTab {
         return plugin;
     }
 
+    @Override
+    public @Unmodifiable List<CustomAdvancement> advancements() {
+        return List.copyOf(((AbstractCustomAdvancement) root).tree());
+    }
+
+    @Override
+    public void grant(final Collection<? extends Player> players, final Collection<? extends CustomAdvancement> advancements) {
+        checkMembers(advancements);
+        advancements.forEach(advancement -> advancement.grant(players));
+    }
+
+    @Override
+    public void revoke(final Collection<? extends Player> players, final Collection<? extends CustomAdvancement> advancements) {
+        checkMembers(advancements);
+        advancements.forEach(advancement -> advancement.revoke(players));
+    }
+
+    private void checkMembers(final Collection<? extends CustomAdvancement> advancements) {
+        for (final CustomAdvancement advancement : advancements)
+            if (!advancement.hasCustomTab() || advancement.tab() != this)
+                throw new IllegalArgumentException("Advancement \"" + advancement.key() + "\" does not belong to this tab");
+    }
+
+    @Override
+    public boolean isVisible(final Player player) {
+        return visibility == null || visibility.test(player);
+    }
+
+    @Override
+    public void updateVisibility(final Player player) {
+        if (visibility == null) return;
+        final AbstractCustomAdvancement root = (AbstractCustomAdvancement) this.root;
+        if (root.unloaded() || root.pendingBatch() != null) return; // updated once loaded
+        TaskScheduler.runForPlayer(plugin, player, () -> {
+            if (root.unloaded() || !player.isOnline()) return;
+            final boolean visible = visibility.test(player);
+            if (visible) visibilityGrants.add(player.getUniqueId());
+            try {
+                // the cache makes these no-ops unless the visibility changed
+                for (final String criterion : root.criteria()) {
+                    if (visible) root.grant(player, criterion);
+                    else root.revoke(player, criterion);
+                }
+            } finally {
+                if (visible) visibilityGrants.remove(player.getUniqueId());
+            }
+        }, null); // re-evaluated when the player joins again
+    }
+
+    /**
+     * Checks whether the completion of the root advancement is managed by the visibility condition of this tab.
+     */
+    @ApiStatus.Internal
+    boolean managesVisibility() {
+        return visibility != null;
+    }
+
+    /**
+     * Checks whether the root criteria are currently being granted to the player to show them this tab.
+     */
+    @ApiStatus.Internal
+    boolean isVisibilityGrant(final Player player) {
+        return !visibilityGrants.isEmpty() && visibilityGrants.contains(player.getUniqueId());
+    }
+
+    @Override
+    public void updateVisibility() {
+        if (visibility == null) return;
+        Bukkit.getOnlinePlayers().forEach(this::updateVisibility);
+    }
+
+    @Override
+    public void unload() {
+        root.unload();
+    }
+
     @Override
     public NamespacedKey key() {
         return root.key();
@@ -46,6 +149,8 @@ final class CustomAdvancementTabImpl implements CustomAdvancementTab {
         private final Plugin plugin;
         private NamespacedKey background = DEFAULT_BACKGROUND;
         private @Nullable CustomAdvancement.Builder rootBuilder;
+        private @Nullable CustomAdvancementBatch batch;
+        private @Nullable Predicate<? super Player> visibility;
 
         public Builder(final Plugin plugin) {
             this.plugin = plugin;
@@ -63,9 +168,79 @@ final class CustomAdvancementTabImpl implements CustomAdvancementTab {
             return this;
         }
 
+        @Override
+        public CustomAdvancementTab.Builder batch(final CustomAdvancementBatch batch) {
+            if (batch.loaded()) throw new IllegalArgumentException("This batch has already been loaded");
+            this.batch = batch;
+            return this;
+        }
+
+        @Override
+        public CustomAdvancementTab.Builder visibility(final Predicate<? super Player> visibility) {
+            this.visibility = visibility;
+            return this;
+        }
+
         @Override
         public CustomAdvancementTab buildAndLoad() {
             return new CustomAdvancementTabImpl(this);
         }
+
+        @Override
+        public CustomAdvancementTab buildAndLoad(final Consumer<CustomAdvancementTab> advancements) {
+            if (batch == null) batch = CustomAdvancementBatch.batch();
+            final CustomAdvancementTab tab = buildAndLoad();
+            try {
+                advancements.accept(tab);
+                batch.load();
+            } catch (final RuntimeException | Error e) {
+                tab.unload();
+                throw e;
+            }
+            return tab;
+        }
+
+        @Override
+        public CompletableFuture<CustomAdvancementTab> buildAndLoadAsync(final Consumer<CustomAdvancementTab> advancements) {
+            if (batch == null) batch = CustomAdvancementBatch.batch();
+            final CustomAdvancementTab tab = buildAndLoad();
+            try {
+                advancements.accept(tab);
+            } catch (final RuntimeException | Error e) {
+                tab.unload();
+                throw e;
+            }
+            final CompletableFuture<CustomAdvancementTab> future = new CompletableFuture<>();
+            batch.loadAsync().whenComplete(($, t) -> {
+                if (t == null) {
+                    future.complete(tab);
+                    return;
+                }
+                try {
+                    // a failed preparation completes off the main thread
+                    TaskScheduler.runGlobal(plugin, () -> {
+                        tab.unload();
+                        future.completeExceptionally(t);
+                    });
+                } catch (final Throwable e) { // the plugin was disabled in the meantime, its tabs are unloaded with it
+                    future.completeExceptionally(t);
+                }
+            });
+            return future;
+        }
+
+        @Override
+        public CustomAdvancementTab buildAndReload(final CustomAdvancementTab previous, final Consumer<CustomAdvancementTab> advancements) {
+            if (batch == null) batch = CustomAdvancementBatch.batch();
+            final CustomAdvancementTab tab = buildAndLoad();
+            try {
+                advancements.accept(tab);
+            } catch (final RuntimeException | Error e) {
+                tab.unload(); // the previous tab is still loaded
+                throw e;
+            }
+            batch.reload(previous);
+            return tab;
+        }
     }
 }
@@ -1,20 +1,40 @@
 package cz.jeme.advancium;
 
+import com.destroystokyo.paper.event.player.PlayerAdvancementCriterionGrantEvent;
 import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
 import org.bukkit.event.Event;
 import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.logging.Level;
 
 final class EventManager implements Listener {
     private final Plugin plugin;
-    private final Map<Class<? extends Event>, Map<EventPriority, List<Consumer<? extends Event>>>> eventMap = new HashMap<>();
+    // subscriptions may come from any thread, event dispatch never locks
+    private final Map<Class<? extends Event>, Map<EventPriority, HandlerTable>> tableMap = new ConcurrentHashMap<>();
+    private final Map<NamespacedKey, CriterionHandler> criterionMap = new ConcurrentHashMap<>();
+    private final AtomicBoolean criterionSubscribed = new AtomicBoolean(false);
+    private final Map<NamespacedKey, ProgressCache> progressCacheMap = new ConcurrentHashMap<>();
+    private final AtomicBoolean progressSubscribed = new AtomicBoolean(false);
+    private final AtomicReference<AdvancementWatchdogImpl> watchdog = new AtomicReference<>();
 
     private EventManager(final Plugin plugin) {
         this.plugin = plugin;
@@ -32,39 +52,432 @@ final class EventManager implements Listener {
     public <T extends Event> void subscribe(final Class<T> eventClass,
                                             final EventPriority priority,
                                             final Consumer<T> handler) {
-        final Map<EventPriority, List<Consumer<? extends Event>>> priorityMap = eventMap.computeIfAbsent(
-                eventClass,
-                $ -> new HashMap<>()
+        subscribe(eventClass, priority, null, handler);
+    }
+
+    /**
+     * Subscribes a handler owned by an advancement, so it can be removed using {@link #unsubscribe(CustomAdvancement)}.
+     * <p>
+     * The handler is never suspended by the watchdog.
+     * </p>
+     */
+    public <T extends Event> void subscribe(final Class<T> eventClass,
+                                            final EventPriority priority,
+                                            final @Nullable CustomAdvancement owner,
+                                            final Consumer<T> handler) {
+        subscribe(eventClass, priority, owner, false, handler);
+    }
+
+    /**
+     * Subscribes a handler owned by an advancement, so it can be removed using {@link #unsubscribe(CustomAdvancement)}.
+     *
+     * @param suspendable whether the watchdog may skip the handler while the advancement is suspended,
+     *                    only the handlers added by the plugin using {@link CustomAdvancement.Builder#on(Class, EventPriority, java.util.function.BiConsumer)} are
+     */
+    public <T extends Event> void subscribe(final Class<T> eventClass,
+                                            final EventPriority priority,
+                                            final @Nullable CustomAdvancement owner,
+                                            final boolean suspendable,
+                                            final Consumer<T> handler) {
+        @SuppressWarnings("unchecked") final Consumer<Event> consumer = (Consumer<Event>) handler;
+        table(eventClass, priority).add(new Handler(eventClass, owner, suspendable, consumer));
+    }
+
+    /**
+     * Subscribes many handlers at once, publishing a single new snapshot per handler table
+     * instead of one per handler.
+     */
+    public void subscribeAll(final List<Subscription> subscriptions) {
+        final Map<HandlerTable, List<Handler>> handlerMap = new LinkedHashMap<>();
+        for (final Subscription subscription : subscriptions)
+            handlerMap.computeIfAbsent(
+                    table(subscription.eventClass(), subscription.priority()),
+                    $ -> new ArrayList<>()
+            ).add(new Handler(
+                    subscription.eventClass(),
+                    subscription.owner(),
+                    subscription.suspendable(),
+                    subscription.consumer()
+            ));
+        handlerMap.forEach((table, handlers) -> table.add(handlers.toArray(Handler[]::new)));
+    }
+
+    private HandlerTable table(final Class<? extends Event> eventClass, final EventPriority priority) {
+        // all classes sharing a handler list are served by a single Bukkit executor per priority
+        final Class<? extends Event> registrationClass = registrationClass(eventClass);
+        final Map<EventPriority, HandlerTable> priorityMap = tableMap.computeIfAbsent(
+                registrationClass,
+                $ -> new ConcurrentHashMap<>()
         );
 
-        priorityMap.computeIfAbsent(
+        return priorityMap.computeIfAbsent(
                 priority,
                 $ -> {
-                    final List<Consumer<? extends Event>> list = new ArrayList<>();
+                    final HandlerTable table = new HandlerTable();
                     Bukkit.getPluginManager().registerEvent(
-                            eventClass,
+                            registrationClass,
                             this,
                             priority,
-                            ($$, event) -> {
-                                if (!eventClass.isInstance(event)) return;
-                                for (final Consumer<? extends Event> h : list) {
-                                    @SuppressWarnings("unchecked") final Consumer<Event> cH = (Consumer<Event>) h;
-                                    cH.accept(event);
-                                }
-                            },
+                            ($$, event) -> table.dispatch(event),
                             plugin
                     );
-                    return list;
+                    return table;
                 }
-        ).add(handler);
+        );
     }
 
-    private static final Map<String, EventManager> PLUGIN_EVENT_MANAGERS = new HashMap<>();
+    /**
+     * Subscribes the criterion handlers and the reward delivery of an advancement.
+     * <p>
+     * Neither is ever suspended by the watchdog. The handlers are measured as the handlers of the advancement,
+     * the rewards run after them and are measured by themselves, so they do not count against the handler budget.
+     * </p>
+     */
+    public void subscribeCriterion(final CustomAdvancement owner,
+                                   final @Nullable Consumer<PlayerAdvancementCriterionGrantEvent> handler,
+                                   final @Nullable Consumer<PlayerAdvancementCriterionGrantEvent> rewards) {
+        if (criterionSubscribed.compareAndSet(false, true))
+            subscribe(
+                    PlayerAdvancementCriterionGrantEvent.class,
+                    event -> {
+                        // a single listener per plugin, the handlers are looked up by the advancement key
+                        final CriterionHandler h = criterionMap.get(event.getAdvancement().getKey());
+                        if (h == null) return;
+                        if (h.consumer() != null) {
+                            if (measured()) invokeMeasured(h.owner(), h.consumer(), event, false);
+                            else invoke(h.owner(), h.consumer(), event);
+                        }
+                        if (h.rewards() != null) invoke(h.owner(), h.rewards(), event);
+                    }
+            );
+        criterionMap.put(owner.key(), new CriterionHandler(owner, handler, rewards));
+    }
+
+    /**
+     * Keeps the provided progress cache current from criterion grants and evicts players from it when they quit.
+     */
+    public void trackProgress(final ProgressCache cache) {
+        if (progressSubscribed.compareAndSet(false, true)) {
+            subscribe(
+                    PlayerAdvancementCriterionGrantEvent.class,
+                    EventPriority.MONITOR,
+                    event -> {
+                        if (event.isCancelled()) return;
+                        final ProgressCache c = progressCacheMap.get(event.getAdvancement().getKey());
+                        if (c == null) return;
+                        c.update(event.getPlayer().getUniqueId(), event.getCriterion(), true);
+                        if (Metrics.enabled()) Metrics.GRANTS.increment();
+                    }
+            );
+            subscribe(
+                    PlayerQuitEvent.class,
+                    EventPriority.MONITOR,
+                    event -> {
+                        final UUID uuid = event.getPlayer().getUniqueId();
+                        for (final ProgressCache c : progressCacheMap.values())
+                            c.evict(uuid);
+                    }
+            );
+        }
+        progressCacheMap.put(cache.advancement().key(), cache);
+    }
+
+    /**
+     * Replaces the watchdog of this manager.
+     *
+     * @return the previous watchdog
+     */
+    public @Nullable AdvancementWatchdogImpl watchdog(final @Nullable AdvancementWatchdogImpl watchdog) {
+        return this.watchdog.getAndSet(watchdog);
+    }
+
+    /**
+     * Removes the watchdog of this manager if it is the provided one.
+     */
+    public void removeWatchdog(final AdvancementWatchdogImpl watchdog) {
+        this.watchdog.compareAndSet(watchdog, null);
+    }
+
+    /**
+     * Removes all handlers owned by the provided advancement.
+     */
+    public void unsubscribe(final CustomAdvancement owner) {
+        for (final Map<EventPriority, HandlerTable> priorityMap : tableMap.values())
+            for (final HandlerTable table : priorityMap.values())
+                table.remove(owner);
+        final CriterionHandler criterionHandler = criterionMap.get(owner.key());
+        // the key may already be taken over by a reloaded advancement
+        if (criterionHandler != null && criterionHandler.owner() == owner)
+            criterionMap.remove(owner.key(), criterionHandler);
+        final ProgressCache progressCache = progressCacheMap.get(owner.key());
+        if (progressCache != null && progressCache.advancement() == owner)
+            progressCacheMap.remove(owner.key(), progressCache);
+    }
+
+    /**
+     * Unregisters all Bukkit listeners of this manager and drops all its handlers.
+     */
+    public void unregister() {
+        HandlerList.unregisterAll(this);
+        final AdvancementWatchdogImpl watchdog = this.watchdog.get();
+        if (watchdog != null) watchdog.stop();
+        tableMap.clear();
+        criterionMap.clear();
+        progressCacheMap.clear();
+        PLUGIN_EVENT_MANAGERS.remove(plugin.getName(), this);
+    }
+
+    /**
+     * Finds the class whose handler list Bukkit uses for the provided event class,
+     * mirroring the lookup done by the plugin manager.
+     */
+    private static Class<? extends Event> registrationClass(final Class<? extends Event> eventClass) {
+        for (Class<?> clazz = eventClass; clazz != null && clazz != Event.class; clazz = clazz.getSuperclass()) {
+            try {
+                clazz.getDeclaredMethod("getHandlerList");
+                return clazz.asSubclass(Event.class);
+            } catch (final NoSuchMethodException ignored) {
+            }
+        }
+        return eventClass; // the plugin manager reports the missing handler list itself
+    }
+
+    /**
+     * A handler to be subscribed using {@link #subscribeAll(List)}.
+     */
+    public record Subscription(Class<? extends Event> eventClass,
+                               EventPriority priority,
+                               @Nullable CustomAdvancement owner,
+                               boolean suspendable,
+                               Consumer<Event> consumer) {
+        public static <T extends Event> Subscription of(final Class<T> eventClass,
+                                                        final EventPriority priority,
+                                                        final @Nullable CustomAdvancement owner,
+                                                        final boolean suspendable,
+                                                        final Consumer<T> consumer) {
+            @SuppressWarnings("unchecked") final Consumer<Event> cConsumer = (Consumer<Event>) consumer;
+            return new Subscription(eventClass, priority, owner, suspendable, cConsumer);
+        }
+    }
+
+    private record Handler(Class<? extends Event> eventClass,
+                           @Nullable CustomAdvancement owner,
+                           boolean suspendable,
+                           Consumer<Event> consumer) {
+    }
 
+    private record CriterionHandler(CustomAdvancement owner,
+                                    @Nullable Consumer<PlayerAdvancementCriterionGrantEvent> consumer,
+                                    @Nullable Consumer<PlayerAdvancementCriterionGrantEvent> rewards) {
+    }
+
+    /**
+     * Copy-on-write handlers of a single (handler list, priority) bucket.
+     * <p>
+     * The handlers applicable to a concrete event class are flattened into an array the first time
+     * such an event is dispatched, so the dispatch itself is a map lookup and a plain loop.
+     * All changes publish a new immutable snapshot using compare-and-set, so neither subscriptions
+     * nor the dispatch ever lock and handlers added during a dispatch only take effect for the next event.
+     * Added handlers are appended to the already resolved arrays they apply to, so subscribing does not
+     * make the following events resolve all handlers again.
+     * </p>
+     */
+    private final class HandlerTable {
+        private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(
+                new Snapshot(new Handler[0], Map.of())
+        );
+        // only counted while the metrics are enabled
+        private final LongAdder events = new LongAdder();
+        private final LongAdder invocations = new LongAdder();
+
+        private record Snapshot(Handler[] handlers, Map<Class<? extends Event>, Handler[]> resolved) {
+            private Handler[] resolve(final Class<? extends Event> eventClass) {
+                return Arrays.stream(handlers)
+                        .filter(handler -> handler.eventClass().isAssignableFrom(eventClass))
+                        .toArray(Handler[]::new);
+            }
+        }
+
+        private void add(final Handler... added) {
+            snapshot.updateAndGet(old -> {
+                final Handler[] handlers = concat(old.handlers(), added);
+                if (old.resolved().isEmpty()) return new Snapshot(handlers, Map.of());
+                final Map<Class<? extends Event>, Handler[]> resolved = new HashMap<>(old.resolved());
+                resolved.replaceAll((eventClass, resolvedHandlers) -> {
+                    final Handler[] applicable = Arrays.stream(added)
+                            .filter(handler -> handler.eventClass().isAssignableFrom(eventClass))
+                            .toArray(Handler[]::new);
+                    return applicable.length == 0 ? resolvedHandlers : concat(resolvedHandlers, applicable);
+                });
+                return new Snapshot(handlers, Map.copyOf(resolved));
+            });
+        }
+
+        private static Handler[] concat(final Handler[] first, final Handler[] second) {
+            final Handler[] handlers = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, handlers, first.length, second.length);
+            return handlers;
+        }
+
+        private void remove(final CustomAdvancement owner) {
+            snapshot.updateAndGet(old -> {
+                final Handler[] handlers = Arrays.stream(old.handlers())
+                        .filter(handler -> handler.owner() != owner)
+                        .toArray(Handler[]::new);
+                return handlers.length == old.handlers().length ? old : new Snapshot(handlers, Map.of());
+            });
+        }
+
+        private void dispatch(final Event event) {
+            final Class<? extends Event> eventClass = event.getClass();
+            final Snapshot snapshot = this.snapshot.get();
+            Handler[] handlers = snapshot.resolved().get(eventClass);
+            if (handlers == null) {
+                handlers = snapshot.resolve(eventClass);
+                final Map<Class<? extends Event>, Handler[]> resolved = new HashMap<>(snapshot.resolved());
+                resolved.put(eventClass, handlers);
+                // if another change won the race, the handlers are resolved again with the next event
+                this.snapshot.compareAndSet(snapshot, new Snapshot(snapshot.handlers(), Map.copyOf(resolved)));
+            }
+            if (!measured()) {
+                for (final Handler handler : handlers)
+                    invoke(handler.owner(), handler.consumer(), event);
+                return;
+            }
+            if (Metrics.enabled()) {
+                events.increment();
+                invocations.add(handlers.length);
+            }
+            for (final Handler handler : handlers) {
+                final CustomAdvancement owner = handler.owner();
+                // internal handlers are measured by themselves if needed
+                if (owner == null) invoke(null, handler.consumer(), event);
+                else invokeMeasured(owner, handler.consumer(), event, handler.suspendable());
+            }
+        }
+    }
+
+    /**
+     * Checks whether the handlers of advancements have to be measured.
+     */
+    private boolean measured() {
+        return watchdog.get() != null || Metrics.enabled() || FlightEvents.handlerEnabled();
+    }
+
+    /**
+     * Invokes a handler, its failure is logged so that the remaining handlers still run.
+     */
+    private <T extends Event> void invoke(final @Nullable CustomAdvancement owner, final Consumer<T> consumer, final T event) {
+        try {
+            consumer.accept(event);
+        } catch (final Exception e) {
+            failed(owner, event, e);
+        }
+    }
+
+    /**
+     * Invokes a handler of an advancement and records its time, only used while {@link #measured()}.
+     * <p>
+     * Suspendable handlers are skipped while the watchdog suspends their advancement.
+     * </p>
+     */
+    private <T extends Event> void invokeMeasured(final CustomAdvancement owner,
+                                                  final Consumer<T> consumer,
+                                                  final T event,
+                                                  final boolean suspendable) {
+        final AdvancementWatchdogImpl watchdog = this.watchdog.get();
+        if (suspendable && watchdog != null && watchdog.isSuspended(owner)) return;
+        final boolean metrics = Metrics.enabled();
+        final boolean timed = metrics || watchdog != null;
+        final FlightEvents.Handler flightEvent = FlightEvents.handlerEnabled() ? new FlightEvents.Handler() : null;
+        final long start = timed ? System.nanoTime() : 0;
+        if (flightEvent != null) flightEvent.begin();
+        try {
+            consumer.accept(event);
+        } catch (final Exception e) {
+            failed(owner, event, e);
+        } finally {
+            if (flightEvent != null) FlightEvents.commit(flightEvent, owner, event.getClass());
+            if (timed) {
+                final long nanos = System.nanoTime() - start;
+                if (metrics) Metrics.handler(owner.key()).record(nanos);
+                if (watchdog != null) watchdog.record(owner, nanos);
+            }
+        }
+    }
+
+    private void failed(final @Nullable CustomAdvancement owner, final Event event, final Exception e) {
+        plugin.getLogger().log(
+                Level.SEVERE,
+                "Could not pass " + event.getEventName() + " to " + (owner == null
+                        ? "an Advancium handler"
+                        : "a handler of advancement \"" + owner.key() + "\""),
+                e
+        );
+    }
+
+    private static final Map<String, EventManager> PLUGIN_EVENT_MANAGERS = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the event manager of the plugin, creating it if needed.
+     * <p>
+     * The manager cleans up after the plugin when it is disabled, before its {@code onDisable} is called.
+     * From then on the plugin is no longer enabled and the library cannot be used by it.
+     * </p>
+     *
+     * @throws IllegalStateException if the plugin is not enabled
+     */
     public static EventManager forPlugin(final Plugin plugin) {
+        if (!plugin.isEnabled())
+            throw new IllegalStateException("Plugin \"" + plugin.getName() + "\" is not enabled, Advancium can only be used while it is enabled");
         return PLUGIN_EVENT_MANAGERS.computeIfAbsent(
                 plugin.getName(),
-                $ -> new EventManager(plugin)
+                $ -> {
+                    final EventManager manager = new EventManager(plugin);
+                    manager.subscribe(
+                            PluginDisableEvent.class,
+                            EventPriority.MONITOR,
+                            event -> {
+                                if (event.getPlugin() != plugin) return;
+                                // drops all handlers at once, the advancements no longer unsubscribe one by one
+                                manager.unregister();
+                                AdvancementLoader.INSTANCE.unload(plugin);
+                                GrantQueue.remove(plugin);
+                                CustomAdvancementStoreImpl.closeAll(plugin);
+                                AdvancementDatapack.deleteUnused(plugin);
+                            }
+                    );
+                    return manager;
+                }
         );
     }
+
+    public static List<AdvancementMetrics.Bucket> bucketMetrics() {
+        final List<AdvancementMetrics.Bucket> buckets = new ArrayList<>();
+        for (final EventManager manager : PLUGIN_EVENT_MANAGERS.values())
+            manager.tableMap.forEach((eventClass, priorityMap) -> priorityMap.forEach((priority, table) ->
+                    buckets.add(new AdvancementMetrics.Bucket(
+                            manager.plugin.getName(),
+                            eventClass,
+                            priority,
+                            table.events.sum(),
+                            table.invocations.sum()
+                    ))
+            ));
+        return List.copyOf(buckets);
+    }
+
+    public static void resetMetrics() {
+        for (final EventManager manager : PLUGIN_EVENT_MANAGERS.values())
+            for (final Map<EventPriority, HandlerTable> priorityMap : manager.tableMap.values())
+                for (final HandlerTable table : priorityMap.values()) {
+                    table.events.reset();
+                    table.invocations.reset();
+                }
+    }
+
+    public static @Nullable EventManager forPluginIfPresent(final Plugin plugin) {
+        final EventManager manager = PLUGIN_EVENT_MANAGERS.get(plugin.getName());
+        return manager == null || manager.plugin != plugin ? null : manager;
+    }
 }
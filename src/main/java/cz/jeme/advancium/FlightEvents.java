@@ -0,0 +1,148 @@
+package cz.jeme.advancium;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events of the advancement lifecycle.
+ * <p>
+ * Events are only instantiated after checking that their type is enabled in a running recording,
+ * so nothing is allocated while no recording captures them. The duration of each event is the duration
+ * of the recorded operation.
+ * </p>
+ */
+final class FlightEvents {
+    private static final EventType LOAD = EventType.getEventType(Load.class);
+    private static final EventType HANDLER = EventType.getEventType(Handler.class);
+    private static final EventType GRANT = EventType.getEventType(Grant.class);
+    private static final EventType REWARD = EventType.getEventType(Reward.class);
+
+    private FlightEvents() {
+        throw new AssertionError();
+    }
+
+    public static boolean loadEnabled() {
+        return LOAD.isEnabled();
+    }
+
+    public static boolean handlerEnabled() {
+        return HANDLER.isEnabled();
+    }
+
+    public static boolean grantEnabled() {
+        return GRANT.isEnabled();
+    }
+
+    public static boolean rewardEnabled() {
+        return REWARD.isEnabled();
+    }
+
+    /*
+     * The commit methods end the provided event and fill it in only if it passes the recording's threshold.
+     */
+
+    public static void commit(final Load event, final CustomAdvancement advancement) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.advancement = advancement.key().asString();
+        event.plugin = advancement.plugin().getName();
+        event.commit();
+    }
+
+    public static void commit(final Handler event, final CustomAdvancement advancement, final Class<?> eventClass) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.advancement = advancement.key().asString();
+        event.plugin = advancement.plugin().getName();
+        event.eventClass = eventClass;
+        event.commit();
+    }
+
+    public static void commit(final Grant event, final CustomAdvancement advancement, final String criterion, final String player) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.advancement = advancement.key().asString();
+        event.plugin = advancement.plugin().getName();
+        event.criterion = criterion;
+        event.player = player;
+        event.commit();
+    }
+
+    public static void commit(final Reward event, final CustomAdvancement advancement, final String player) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.advancement = advancement.key().asString();
+        event.plugin = advancement.plugin().getName();
+        event.player = player;
+        event.commit();
+    }
+
+    @Name("cz.jeme.advancium.Load")
+    @Label("Advancement Load")
+    @Description("A custom advancement loaded to the server")
+    @Category({"Advancium"})
+    @StackTrace(false)
+    static final class Load extends Event {
+        @Label("Advancement")
+        String advancement;
+
+        @Label("Plugin")
+        String plugin;
+    }
+
+    @Name("cz.jeme.advancium.Handler")
+    @Label("Advancement Event Handler")
+    @Description("An event handler of a custom advancement invoked by the library")
+    @Category({"Advancium"})
+    @StackTrace(false)
+    static final class Handler extends Event {
+        @Label("Advancement")
+        String advancement;
+
+        @Label("Plugin")
+        String plugin;
+
+        @Label("Event Class")
+        Class<?> eventClass;
+    }
+
+    @Name("cz.jeme.advancium.Grant")
+    @Label("Advancement Criterion Grant")
+    @Description("A criterion of a custom advancement granted by the library, including the handlers it triggered")
+    @Category({"Advancium"})
+    @StackTrace(false)
+    static final class Grant extends Event {
+        @Label("Advancement")
+        String advancement;
+
+        @Label("Plugin")
+        String plugin;
+
+        @Label("Criterion")
+        String criterion;
+
+        @Label("Player")
+        String player;
+    }
+
+    @Name("cz.jeme.advancium.Reward")
+    @Label("Advancement Reward Delivery")
+    @Description("Loot rewards of a custom advancement given to a player")
+    @Category({"Advancium"})
+    @StackTrace(false)
+    static final class Reward extends Event {
+        @Label("Advancement")
+        String advancement;
+
+        @Label("Plugin")
+        String plugin;
+
+        @Label("Player")
+        String player;
+    }
+}
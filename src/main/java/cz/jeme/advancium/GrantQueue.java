@@ -0,0 +1,180 @@
+package cz.jeme.advancium;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+/**
+ * Collects criterion grants and revokes of a plugin from any thread and applies them on the thread owning the player.
+ * <p>
+ * Requests are pushed to a lock-free queue, which is drained once per tick on the main thread
+ * (or the global region thread on Folia). Changes of the same criterion
+ * for the same player are merged, the last queued change wins. All changes of a player are applied together,
+ * so the server sends the player a single progress update. Applying stops once the time budget of the tick
+ * is used up, the remaining changes are applied during the following ticks.
+ * The drain task stops once the queue is empty and starts again with the next request.
+ * </p>
+ */
+final class GrantQueue {
+    private static final Duration DEFAULT_BUDGET = Duration.ofMillis(5);
+
+    private final Plugin plugin;
+    private final Queue<Request> queue = new ConcurrentLinkedQueue<>();
+    // set while the drain task is scheduled
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile long budgetNanos = DEFAULT_BUDGET.toNanos();
+    private volatile @Nullable Runnable cancelTask;
+
+    // drain thread only (the main thread or the global region thread)
+    private final Map<UUID, Map<Change, Pending>> pending = new LinkedHashMap<>();
+
+    private GrantQueue(final Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    private record Change(AbstractCustomAdvancement advancement, String criterion) {
+    }
+
+    private record Request(UUID player, Change change, boolean grant, @Nullable CompletableFuture<Boolean> future) {
+    }
+
+    /**
+     * The merged requests of a single change, the last request decides whether the criterion is granted.
+     */
+    private static final class Pending {
+        private boolean grant;
+        private final List<Request> requests = new ArrayList<>(1);
+    }
+
+    public void budget(final Duration budget) {
+        if (budget.isNegative() || budget.isZero())
+            throw new IllegalArgumentException("The time budget must be positive");
+        budgetNanos = budget.toNanos();
+    }
+
+    public void enqueue(final UUID player,
+                        final AbstractCustomAdvancement advancement,
+                        final String criterion,
+                        final boolean grant,
+                        final @Nullable CompletableFuture<Boolean> future) {
+        queue.add(new Request(player, new Change(advancement, criterion), grant, future));
+        if (running.compareAndSet(false, true)) start();
+    }
+
+    private void start() {
+        final AtomicReference<Runnable> cancel = new AtomicReference<>();
+        cancelTask = () -> {
+            final Runnable c = cancel.get();
+            if (c != null) c.run();
+        };
+        cancel.set(TaskScheduler.runGlobalTimer(plugin, () -> {
+            if (drain()) return;
+            running.set(false);
+            // a request queued before the flag was cleared did not start a new task, this one keeps running for it
+            if (!queue.isEmpty() && running.compareAndSet(false, true)) return;
+            final Runnable c = cancel.get();
+            if (c != null) c.run(); // otherwise cancelled once idle on the next tick
+        }));
+    }
+
+    /**
+     * Applies the queued changes within the time budget.
+     *
+     * @return {@code false} if there was nothing to apply
+     */
+    private boolean drain() {
+        Request request;
+        while ((request = queue.poll()) != null) {
+            final Pending p = pending.computeIfAbsent(request.player(), $ -> new LinkedHashMap<>())
+                    .computeIfAbsent(request.change(), $ -> new Pending());
+            p.grant = request.grant();
+            p.requests.add(request);
+        }
+        if (pending.isEmpty()) return false;
+
+        final long deadline = System.nanoTime() + budgetNanos;
+        final Iterator<Map.Entry<UUID, Map<Change, Pending>>> iterator = pending.entrySet().iterator();
+        // at least one player is processed every tick
+        do {
+            final Map.Entry<UUID, Map<Change, Pending>> entry = iterator.next();
+            iterator.remove();
+            final Player player = Bukkit.getPlayer(entry.getKey());
+            final Map<Change, Pending> changes = entry.getValue();
+            if (player == null) apply(null, changes);
+            // the futures of a player who left are completed as if they quit before draining
+            else TaskScheduler.runForPlayer(plugin, player, () -> apply(player, changes), () -> apply(null, changes));
+        } while (iterator.hasNext() && System.nanoTime() < deadline);
+        return true;
+    }
+
+    private void apply(final @Nullable Player player, final Map<Change, Pending> changes) {
+        changes.forEach((change, p) -> {
+            final AbstractCustomAdvancement advancement = change.advancement();
+            boolean result = false;
+            if (player != null && !advancement.unloaded()) { // the player may have quit in the meantime
+                try {
+                    result = p.grant
+                            ? advancement.grant(player, change.criterion())
+                            : advancement.revoke(player, change.criterion());
+                } catch (final RuntimeException e) {
+                    boolean bulk = false;
+                    for (final Request r : p.requests) {
+                        if (r.future() != null) r.future().completeExceptionally(e);
+                        else bulk = true;
+                    }
+                    // bulk requests have no future to report the failure to
+                    if (bulk) plugin.getLogger().log(
+                            Level.SEVERE,
+                            "Could not " + (p.grant ? "grant" : "revoke") + " criterion \"" + change.criterion()
+                            + "\" of advancement \"" + advancement.key() + "\" for player " + player.getName(),
+                            e
+                    );
+                    return;
+                }
+            }
+            for (final Request r : p.requests) {
+                if (r.future() == null) continue;
+                // superseded requests of the opposite kind were not applied
+                r.future().complete(r.grant() == p.grant && result);
+            }
+        });
+    }
+
+    private void cancel() {
+        final Runnable cancelTask = this.cancelTask;
+        if (cancelTask != null) cancelTask.run();
+        Request request;
+        while ((request = queue.poll()) != null)
+            if (request.future() != null) request.future().cancel(false);
+        pending.values().forEach(changes -> changes.values().forEach(p -> p.requests.forEach(r -> {
+            if (r.future() != null) r.future().cancel(false);
+        })));
+        pending.clear();
+    }
+
+    private static final Map<String, GrantQueue> PLUGIN_GRANT_QUEUES = new ConcurrentHashMap<>();
+
+    public static GrantQueue forPlugin(final Plugin plugin) {
+        return PLUGIN_GRANT_QUEUES.computeIfAbsent(
+                plugin.getName(),
+                $ -> new GrantQueue(plugin)
+        );
+    }
+
+    public static void remove(final Plugin plugin) {
+        final GrantQueue queue = PLUGIN_GRANT_QUEUES.get(plugin.getName());
+        if (queue == null || queue.plugin != plugin) return;
+        PLUGIN_GRANT_QUEUES.remove(plugin.getName(), queue);
+        queue.cancel();
+    }
+}
@@ -0,0 +1,112 @@
+package cz.jeme.advancium;
+
+import org.bukkit.NamespacedKey;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the metrics exposed by {@link AdvancementMetrics}.
+ * <p>
+ * Every measured code path checks {@link #enabled()} first, so nothing is measured
+ * (and {@link System#nanoTime()} is not called) while the metrics are disabled.
+ * </p>
+ */
+final class Metrics {
+    private static volatile boolean enabled = false;
+    private static volatile long since = System.nanoTime();
+
+    public static final Recorder LOADS = new Recorder();
+    public static final Recorder REWARDS = new Recorder();
+    public static final LongAdder GRANTS = new LongAdder();
+    public static final LongAdder SERIALIZATION_HITS = new LongAdder();
+    public static final LongAdder SERIALIZATION_MISSES = new LongAdder();
+    private static final Map<NamespacedKey, Recorder> HANDLERS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+        throw new AssertionError();
+    }
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    public static void enabled(final boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    public static Recorder handler(final NamespacedKey key) {
+        final Recorder recorder = HANDLERS.get(key);
+        return recorder != null ? recorder : HANDLERS.computeIfAbsent(key, $ -> new Recorder());
+    }
+
+    /**
+     * Drops the handler times of an advancement that is no longer loaded.
+     */
+    public static void removeHandler(final NamespacedKey key) {
+        HANDLERS.remove(key);
+    }
+
+    public static void reset() {
+        since = System.nanoTime();
+        LOADS.reset();
+        REWARDS.reset();
+        GRANTS.reset();
+        SERIALIZATION_HITS.reset();
+        SERIALIZATION_MISSES.reset();
+        HANDLERS.clear();
+        EventManager.resetMetrics();
+    }
+
+    public static AdvancementMetrics snapshot() {
+        final Map<NamespacedKey, AdvancementMetrics.Timer> handlers = new HashMap<>();
+        HANDLERS.forEach((key, recorder) -> handlers.put(key, recorder.snapshot()));
+        return new AdvancementMetricsImpl(
+                Duration.ofNanos(System.nanoTime() - since),
+                EventManager.bucketMetrics(),
+                LOADS.snapshot(),
+                Map.copyOf(handlers),
+                GRANTS.sum(),
+                REWARDS.snapshot(),
+                new AdvancementMetrics.Cache(SERIALIZATION_HITS.sum(), SERIALIZATION_MISSES.sum())
+        );
+    }
+
+    /**
+     * A thread-safe latency recorder with a log2 histogram.
+     */
+    static final class Recorder {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(64);
+
+        public void record(final long nanos) {
+            final long n = Math.max(0, nanos);
+            count.increment();
+            total.add(n);
+            max.accumulate(n);
+            histogram.incrementAndGet(63 - Long.numberOfLeadingZeros(n | 1));
+        }
+
+        public AdvancementMetrics.Timer snapshot() {
+            final long[] histogram = new long[this.histogram.length()];
+            for (int i = 0; i < histogram.length; i++)
+                histogram[i] = this.histogram.get(i);
+            return new AdvancementMetrics.Timer(count.sum(), total.sum(), max.get(), histogram);
+        }
+
+        public void reset() {
+            count.reset();
+            total.reset();
+            max.reset();
+            for (int i = 0; i < histogram.length(); i++)
+                histogram.set(i, 0);
+        }
+    }
+}
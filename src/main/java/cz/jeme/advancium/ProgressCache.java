@@ -0,0 +1,228 @@
+package cz.jeme.advancium;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the awarded criteria and the counters of a single custom advancement for online players.
+ * <p>
+ * The awarded criteria of each player are stored as a bitset indexed by the criterion index.
+ * An entry is loaded from the server on the first access and kept current by the grant listener
+ * of the {@link EventManager} and by the library's own grants and revokes.
+ * Entries are evicted when the player quits.
+ * </p>
+ * <p>
+ * Counter values are not stored by the server, they are persisted in the {@value #COUNTER_STORE}
+ * {@link CustomAdvancementStore} of the plugin under the field {@code <advancement key>#<counter name>}.
+ * When a player's counters are first accessed, each counter starts at its stored value,
+ * or at the highest step whose criterion the player has been awarded if that is higher.
+ * </p>
+ */
+final class ProgressCache {
+    static final String COUNTER_STORE = "counters";
+
+    private final AbstractCustomAdvancement advancement;
+    private final Map<String, Integer> indices;
+    /**
+     * Criterion indices of each requirement group.
+     */
+    private final int[][] requirements;
+    private final int words;
+    /**
+     * The bitset of a player is only accessed from the thread owning the player.
+     */
+    private final Map<UUID, long[]> awarded = new ConcurrentHashMap<>();
+
+    private final Counter[] counters;
+    private final Map<String, Integer> counterIndices;
+    private final @Nullable CustomAdvancementStore counterStore;
+    /**
+     * The store field of each counter.
+     */
+    private final String[] counterFields;
+    /**
+     * The value of each counter followed by the next step it has to reach, only accessed from the thread owning the player.
+     */
+    private final Map<UUID, long[]> counterValues = new ConcurrentHashMap<>();
+
+    /**
+     * A counter granting its criteria once it reaches their steps, the last criterion is the counter itself.
+     */
+    record Counter(String name, String[] criteria, long[] steps) {
+        public static Counter of(final String name, final long threshold, final int milestones) {
+            final String[] criteria = new String[milestones];
+            final long[] steps = new long[milestones];
+            for (int i = 1; i <= milestones; i++) {
+                criteria[i - 1] = i == milestones ? name : name + "#" + i;
+                // threshold * i / milestones without overflowing
+                steps[i - 1] = threshold / milestones * i + threshold % milestones * i / milestones;
+            }
+            return new Counter(name, criteria, steps);
+        }
+    }
+
+    ProgressCache(final AbstractCustomAdvancement advancement) {
+        this.advancement = advancement;
+        final String[] criteria = advancement.criteria().stream().sorted().toArray(String[]::new);
+        final Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < criteria.length; i++)
+            indices.put(criteria[i], i);
+        this.indices = Collections.unmodifiableMap(indices);
+        requirements = advancement.requirements().stream()
+                .map(group -> group.stream().mapToInt(indices::get).toArray())
+                .toArray(int[][]::new);
+        words = (criteria.length + 63) >>> 6;
+
+        counters = advancement.counters.toArray(Counter[]::new);
+        final Map<String, Integer> counterIndices = new HashMap<>();
+        for (int i = 0; i < counters.length; i++)
+            counterIndices.put(counters[i].name(), i);
+        this.counterIndices = Collections.unmodifiableMap(counterIndices);
+        counterStore = counters.length == 0 ? null : CustomAdvancementStoreImpl.open(
+                advancement.plugin(),
+                COUNTER_STORE,
+                Duration.ofSeconds(5),
+                Duration.ofMinutes(5)
+        );
+        counterFields = Arrays.stream(counters)
+                .map(counter -> advancement.key().asString() + "#" + counter.name())
+                .toArray(String[]::new);
+    }
+
+    public AbstractCustomAdvancement advancement() {
+        return advancement;
+    }
+
+    public int index(final String criterion) {
+        final Integer index = indices.get(criterion);
+        if (index == null)
+            throw new IllegalArgumentException("Unknown criterion \"" + criterion + "\" of advancement \"" + advancement.key() + "\"");
+        return index;
+    }
+
+    private long[] awarded(final Player player) {
+        long[] bits = awarded.get(player.getUniqueId());
+        if (bits != null) return bits;
+        bits = new long[words];
+        for (final String criterion : advancement.progress(player).getAwardedCriteria()) {
+            final Integer index = indices.get(criterion);
+            if (index != null) bits[index >>> 6] |= 1L << index;
+        }
+        awarded.put(player.getUniqueId(), bits);
+        return bits;
+    }
+
+    public boolean isAwarded(final Player player, final int index) {
+        return (awarded(player)[index >>> 6] & 1L << index) != 0;
+    }
+
+    public boolean isDone(final Player player) {
+        final long[] bits = awarded(player);
+        groups:
+        for (final int[] group : requirements) {
+            for (final int index : group)
+                if ((bits[index >>> 6] & 1L << index) != 0) continue groups;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Updates a cached criterion, players without a cache entry are ignored.
+     */
+    public void update(final UUID player, final String criterion, final boolean awarded) {
+        final long[] bits = this.awarded.get(player);
+        if (bits == null) return;
+        final Integer index = indices.get(criterion);
+        if (index == null) return;
+        if (awarded) bits[index >>> 6] |= 1L << index;
+        else bits[index >>> 6] &= ~(1L << index);
+    }
+
+    public int counterIndex(final String counter) {
+        final Integer index = counterIndices.get(counter);
+        if (index == null)
+            throw new IllegalArgumentException("Unknown counter \"" + counter + "\" of advancement \"" + advancement.key() + "\"");
+        return index;
+    }
+
+    private long[] counterValues(final Player player) {
+        long[] values = counterValues.get(player.getUniqueId());
+        if (values != null) return values;
+        values = new long[counters.length << 1];
+        for (int i = 0; i < counters.length; i++) {
+            final Counter counter = counters[i];
+            long value = 0;
+            for (int j = counter.steps().length - 1; j >= 0; j--) {
+                if (isAwarded(player, indices.get(counter.criteria()[j]))) {
+                    value = counter.steps()[j];
+                    break;
+                }
+            }
+            // the milestones may have been granted before the counter was stored
+            value = Math.max(value, Objects.requireNonNull(counterStore).get(player.getUniqueId(), counterFields[i]));
+            long next = Long.MAX_VALUE;
+            for (final long step : counter.steps()) {
+                if (step > value) {
+                    next = step;
+                    break;
+                }
+            }
+            values[i << 1] = value;
+            values[(i << 1) + 1] = next;
+        }
+        counterValues.put(player.getUniqueId(), values);
+        return values;
+    }
+
+    public long counter(final Player player, final int counter) {
+        return counterValues(player)[counter << 1];
+    }
+
+    /**
+     * Adds a non-negative amount to a counter and grants the criteria of all steps reached.
+     * <p>
+     * Unless a step is reached, no objects are allocated.
+     * </p>
+     */
+    public long increment(final Player player, final int counter, final long amount) {
+        final long[] values = counterValues(player);
+        final int slot = counter << 1;
+        long value = values[slot] + amount;
+        if (value < 0) value = Long.MAX_VALUE; // overflow
+        values[slot] = value;
+        Objects.requireNonNull(counterStore).set(player.getUniqueId(), counterFields[counter], value);
+        if (value < values[slot + 1]) return value;
+
+        final Counter c = counters[counter];
+        long next = Long.MAX_VALUE;
+        for (int i = 0; i < c.steps().length; i++) {
+            if (c.steps()[i] > value) {
+                next = c.steps()[i];
+                break;
+            }
+            advancement.grant(player, c.criteria()[i]); // no-op if already awarded
+        }
+        values[slot + 1] = next;
+        return value;
+    }
+
+    public void reset(final Player player, final int counter) {
+        final long[] values = counterValues(player);
+        final Counter c = counters[counter];
+        values[counter << 1] = 0;
+        values[(counter << 1) + 1] = c.steps()[0];
+        Objects.requireNonNull(counterStore).set(player.getUniqueId(), counterFields[counter], 0);
+        for (final String criterion : c.criteria())
+            advancement.revoke(player, criterion); // no-op if not awarded
+    }
+
+    public void evict(final UUID player) {
+        awarded.remove(player);
+        counterValues.remove(player);
+    }
+}
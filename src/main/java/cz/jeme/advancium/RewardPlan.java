@@ -0,0 +1,84 @@
+package cz.jeme.advancium;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The loot rewards of an advancement, prepared once when the rewards are built.
+ * <p>
+ * Similar items are merged and split into stacks of their maximum size, so a delivery
+ * only clones the prepared stacks and passes them to the inventory in a single call.
+ * The items that do not fit are dropped at one location.
+ * </p>
+ */
+final class RewardPlan {
+    public static final RewardPlan EMPTY = new RewardPlan(new ItemStack[0]);
+
+    private final ItemStack[] stacks;
+
+    private RewardPlan(final ItemStack[] stacks) {
+        this.stacks = stacks;
+    }
+
+    public static RewardPlan of(final List<ItemStack> loot) {
+        final List<ItemStack> templates = new ArrayList<>();
+        final List<Integer> amounts = new ArrayList<>();
+        items:
+        for (final ItemStack item : loot) {
+            if (item.isEmpty()) continue;
+            for (int i = 0; i < templates.size(); i++) {
+                if (templates.get(i).isSimilar(item)) {
+                    amounts.set(i, amounts.get(i) + item.getAmount());
+                    continue items;
+                }
+            }
+            templates.add(item);
+            amounts.add(item.getAmount());
+        }
+        if (templates.isEmpty()) return EMPTY;
+
+        final List<ItemStack> stacks = new ArrayList<>();
+        for (int i = 0; i < templates.size(); i++) {
+            final ItemStack template = templates.get(i);
+            final int max = Math.max(1, template.getMaxStackSize());
+            for (int amount = amounts.get(i); amount > 0; amount -= max) {
+                final ItemStack stack = template.clone();
+                stack.setAmount(Math.min(amount, max));
+                stacks.add(stack);
+            }
+        }
+        return new RewardPlan(stacks.toArray(ItemStack[]::new));
+    }
+
+    public boolean isEmpty() {
+        return stacks.length == 0;
+    }
+
+    /**
+     * Gives the loot of an advancement to the player, must be called on the thread owning the player.
+     */
+    public void deliver(final CustomAdvancement advancement, final Player player) {
+        final long start = Metrics.enabled() ? System.nanoTime() : 0;
+        final FlightEvents.Reward flightEvent = FlightEvents.rewardEnabled() ? new FlightEvents.Reward() : null;
+        if (flightEvent != null) flightEvent.begin();
+        final ItemStack[] items = new ItemStack[stacks.length];
+        // the inventory takes ownership of the items and may change their amounts
+        for (int i = 0; i < stacks.length; i++)
+            items[i] = stacks[i].clone();
+        final Map<Integer, ItemStack> overflow = player.getInventory().addItem(items);
+        if (!overflow.isEmpty()) {
+            final World world = player.getWorld();
+            final Location location = player.getLocation();
+            for (final ItemStack item : overflow.values())
+                world.dropItem(location, item);
+        }
+        if (flightEvent != null) FlightEvents.commit(flightEvent, advancement, player.getName());
+        if (start != 0) Metrics.REWARDS.record(System.nanoTime() - start);
+    }
+}
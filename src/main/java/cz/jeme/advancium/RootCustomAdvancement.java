@@ -8,7 +8,7 @@ final class RootCustomAdvancement extends AbstractCustomAdvancement {
 
     @ApiStatus.Internal
     RootCustomAdvancement(final Builder builder, final CustomAdvancementTab tab) {
-        super(builder, tab.plugin());
+        super(builder, tab.plugin(), null);
 
         this.tab = tab;
     }
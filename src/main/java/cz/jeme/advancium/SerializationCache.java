@@ -0,0 +1,49 @@
+package cz.jeme.advancium;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Memoizes the serialized icons and components while a batch of advancements is prepared.
+ * <p>
+ * Tabs usually reuse a few icons and descriptions across many advancements, so the entries are keyed
+ * by item and component equality. A cache only lives for a single {@link AdvancementLoader#prepare(java.util.List)}
+ * call and holds at most {@value #MAX_ENTRIES} items and {@value #MAX_ENTRIES} components,
+ * values serialized after the cache is full are not stored.
+ * </p>
+ * Instances are thread-safe.
+ */
+final class SerializationCache {
+    static final int MAX_ENTRIES = 1024;
+
+    private final Map<ItemStack, String> icons = new ConcurrentHashMap<>();
+    private final Map<Component, String> components = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the serialized icon, the icon must not be modified afterward.
+     */
+    public String icon(final ItemStack icon, final Function<ItemStack, String> serializer) {
+        return get(icons, icon, serializer);
+    }
+
+    public String component(final Component component, final Function<Component, String> serializer) {
+        return get(components, component, serializer);
+    }
+
+    private static <K> String get(final Map<K, String> cache, final K key, final Function<K, String> serializer) {
+        final String cached = cache.get(key);
+        if (cached != null) {
+            if (Metrics.enabled()) Metrics.SERIALIZATION_HITS.increment();
+            return cached;
+        }
+        if (Metrics.enabled()) Metrics.SERIALIZATION_MISSES.increment();
+        // not computed under the map's lock, racing threads may serialize the same value twice
+        final String serialized = serializer.apply(key);
+        if (cache.size() < MAX_ENTRIES) cache.putIfAbsent(key, serialized);
+        return serialized;
+    }
+}
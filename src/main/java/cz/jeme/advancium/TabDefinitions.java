@@ -0,0 +1,442 @@
+package cz.jeme.advancium;
+
+import com.google.gson.Gson;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Loads the tabs defined in YAML and JSON files, see {@link CustomAdvancementTab#loadDefinition(Plugin, Path)}.
+ * <p>
+ * The files are parsed in parallel on the common {@link ForkJoinPool}, the advancements of each file
+ * are turned into builders in parallel as well. The result of the parsing is a list of builders
+ * ordered so that parents precede their children, the main thread only calls the build methods.
+ * </p>
+ */
+final class TabDefinitions {
+    private static final Pattern NAME_PATTERN = Pattern.compile("[a-z0-9_.-]+");
+    private static final Pattern ID_PATTERN = Pattern.compile("[a-z0-9_./-]+");
+    private static final String ROOT = "root";
+    private static final Gson GSON = new Gson();
+
+    private TabDefinitions() {
+        throw new AssertionError();
+    }
+
+    /**
+     * A parsed tab.
+     *
+     * @param file  the file defining the tab
+     * @param tab   the builder of the tab with its root already set
+     * @param nodes the advancements of the tab, parents precede their children
+     */
+    private record Definition(Path file, CustomAdvancementTab.Builder tab, List<Node> nodes) {
+    }
+
+    private record Node(String id, String parent, CustomAdvancement.Builder builder) {
+    }
+
+    public static CompletableFuture<List<CustomAdvancementTab>> load(final Plugin plugin, final Path directory) {
+        return CompletableFuture.supplyAsync(() -> files(directory), ForkJoinPool.commonPool())
+                .thenCompose(files -> load(plugin, files));
+    }
+
+    public static CompletableFuture<List<CustomAdvancementTab>> load(final Plugin plugin, final List<Path> files) {
+        final List<CompletableFuture<Definition>> parsing = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> parse(plugin, file), ForkJoinPool.commonPool()))
+                .toList();
+        return CompletableFuture.allOf(parsing.toArray(CompletableFuture[]::new))
+                .thenApply($ -> {
+                    final List<Definition> definitions = parsing.stream().map(CompletableFuture::join).toList();
+                    final Map<String, Path> names = new HashMap<>();
+                    for (final Definition definition : definitions) {
+                        final Path previous = names.put(name(definition.file()), definition.file());
+                        if (previous != null)
+                            throw new IllegalArgumentException("Tab \"" + name(definition.file()) + "\" is defined twice: \"" + previous + "\" and \"" + definition.file() + "\"");
+                    }
+                    return definitions;
+                })
+                .thenCompose(definitions -> onMainThread(plugin, () -> register(definitions)));
+    }
+
+    private static List<Path> files(final Path directory) {
+        try (final Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .filter(file -> {
+                        final String name = file.getFileName().toString();
+                        return name.endsWith(".yml") || name.endsWith(".yaml") || name.endsWith(".json");
+                    })
+                    .sorted(Comparator.comparing(file -> file.getFileName().toString()))
+                    .toList();
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to list advancement definitions: \"" + directory + "\"", e);
+        }
+    }
+
+    private static String name(final Path file) {
+        final String name = file.getFileName().toString();
+        final int extension = name.lastIndexOf('.');
+        return extension == -1 ? name : name.substring(0, extension);
+    }
+
+    private static <T> CompletableFuture<T> onMainThread(final Plugin plugin, final Supplier<T> task) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        TaskScheduler.runGlobal(plugin, () -> {
+            try {
+                future.complete(task.get());
+            } catch (final Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private static List<CustomAdvancementTab> register(final List<Definition> definitions) {
+        final List<CustomAdvancementTab> tabs = new ArrayList<>(definitions.size());
+        try {
+            for (final Definition definition : definitions) {
+                final CustomAdvancementBatch batch = CustomAdvancementBatch.batch();
+                // tracked before its advancements are built, so a partially built tab is unloaded as well
+                final CustomAdvancementTab tab = definition.tab().batch(batch).buildAndLoad();
+                tabs.add(tab);
+                final Map<String, CustomAdvancement> built = new HashMap<>();
+                built.put(ROOT, tab.root());
+                for (final Node node : definition.nodes())
+                    built.put(node.id(), node.builder().buildAndBindTo(built.get(node.parent())));
+                batch.load();
+                tab.updateVisibility();
+            }
+        } catch (final RuntimeException e) {
+            // all or nothing
+            tabs.forEach(CustomAdvancementTab::unload);
+            throw e;
+        }
+        return List.copyOf(tabs);
+    }
+
+    // parsing
+
+    private static Definition parse(final Plugin plugin, final Path file) {
+        final String fileName = file.getFileName().toString();
+        final boolean json = fileName.endsWith(".json");
+        if (!json && !fileName.endsWith(".yml") && !fileName.endsWith(".yaml"))
+            throw new IllegalArgumentException("Unsupported advancement definition file: \"" + file + "\"");
+        final String name = name(file);
+        if (!NAME_PATTERN.matcher(name).matches())
+            throw new IllegalArgumentException("Invalid advancement definition file name: \"" + file + "\"");
+
+        final Object document;
+        try (final Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            document = json
+                    ? GSON.fromJson(reader, Object.class)
+                    : new Yaml(new SafeConstructor(new LoaderOptions())).load(reader);
+        } catch (final IOException | RuntimeException e) {
+            throw new RuntimeException("Failed to read advancement definitions: \"" + file + "\"", e);
+        }
+
+        final Section section = Section.of(file, "", document);
+        section.allow("background", "visibility", "root", "advancements");
+        final CustomAdvancementTab.Builder tab = CustomAdvancementTab.tab(plugin);
+        final String background = section.string("background");
+        if (background != null) tab.background(section.key("background", background));
+        final String visibility = section.string("visibility");
+        if (visibility != null) tab.visibility(visibility);
+
+        final Section root = section.section("root");
+        if (root == null) throw section.error("root", "missing");
+        tab.root(builder(root, new NamespacedKey(plugin, name + "/" + ROOT)));
+
+        final Section advancements = section.section("advancements");
+        if (advancements == null) return new Definition(file, tab, List.of());
+        final List<Node> nodes = advancements.keys().parallelStream()
+                .map(id -> {
+                    if (id.equals(ROOT) || !ID_PATTERN.matcher(id).matches())
+                        throw advancements.error(id, "invalid advancement id");
+                    final Section node = Objects.requireNonNullElseGet(
+                            advancements.section(id),
+                            () -> Section.of(file, advancements.path(id), Map.of())
+                    );
+                    final String parent = Objects.requireNonNullElse(node.string("parent"), ROOT);
+                    return new Node(id, parent, builder(node, new NamespacedKey(plugin, name + "/" + id)));
+                })
+                .toList();
+        return new Definition(file, tab, sort(advancements, nodes));
+    }
+
+    /**
+     * Orders the advancements so that parents precede their children, keeping the order of the file otherwise.
+     */
+    private static List<Node> sort(final Section advancements, final List<Node> nodes) {
+        final Map<String, Node> byId = new HashMap<>();
+        nodes.forEach(node -> byId.put(node.id(), node));
+        final Set<String> visited = new HashSet<>();
+        visited.add(ROOT);
+        final List<Node> sorted = new ArrayList<>(nodes.size());
+        for (final Node node : nodes) {
+            final Deque<Node> chain = new ArrayDeque<>();
+            final Set<String> path = new HashSet<>();
+            Node current = node;
+            while (!visited.contains(current.id())) {
+                if (!path.add(current.id()))
+                    throw advancements.error(current.id(), "the advancement is its own ancestor");
+                chain.push(current);
+                final Node parent = byId.get(current.parent());
+                if (parent == null && !current.parent().equals(ROOT))
+                    throw advancements.error(current.id() + ".parent", "unknown advancement \"" + current.parent() + "\"");
+                if (parent == null) break;
+                current = parent;
+            }
+            while (!chain.isEmpty()) {
+                final Node next = chain.pop();
+                visited.add(next.id());
+                sorted.add(next);
+            }
+        }
+        return sorted;
+    }
+
+    private static CustomAdvancement.Builder builder(final Section section, final NamespacedKey key) {
+        section.allow("parent", "display", "criteria", "requirements", "counters", "rewards");
+        final CustomAdvancement.Builder builder = CustomAdvancement.advancement(key);
+        final Section display = section.section("display");
+        if (display != null) builder.display(display(display));
+        final Section rewards = section.section("rewards");
+        if (rewards != null) builder.rewards(rewards(rewards));
+
+        final List<?> criteria = section.list("criteria");
+        final List<?> requirements = section.list("requirements");
+        if (criteria != null && requirements != null)
+            throw section.error("requirements", "only one of criteria and requirements may be set");
+        if (criteria != null) {
+            final Set<String> set = new HashSet<>(section.strings("criteria", criteria));
+            try {
+                builder.criteria(set);
+            } catch (final IllegalArgumentException e) {
+                throw section.error("criteria", e.getMessage());
+            }
+        }
+        if (requirements != null) {
+            final Set<Set<String>> groups = new HashSet<>();
+            for (int i = 0; i < requirements.size(); i++) {
+                if (!(requirements.get(i) instanceof final List<?> group) || group.isEmpty())
+                    throw section.error("requirements[" + i + "]", "expected a non-empty list of criteria");
+                groups.add(Set.copyOf(section.strings("requirements[" + i + "]", group)));
+            }
+            try {
+                builder.requirements(groups);
+            } catch (final IllegalArgumentException e) {
+                throw section.error("requirements", e.getMessage());
+            }
+        }
+
+        final Section counters = section.section("counters");
+        if (counters != null) {
+            for (final String counter : counters.keys()) {
+                final long threshold;
+                final int milestones;
+                final Section definition = counters.isSection(counter) ? counters.section(counter) : null;
+                if (definition == null) {
+                    threshold = counters.number(counter, 1);
+                    milestones = 1;
+                } else {
+                    definition.allow("threshold", "milestones");
+                    threshold = definition.number("threshold", 1);
+                    milestones = definition.contains("milestones")
+                            ? (int) Math.min(Integer.MAX_VALUE, definition.number("milestones", 1))
+                            : 1;
+                }
+                try {
+                    builder.counter(counter, threshold, milestones);
+                } catch (final IllegalArgumentException e) {
+                    throw counters.error(counter, e.getMessage());
+                }
+            }
+        }
+        return builder;
+    }
+
+    private static CustomAdvancementDisplay display(final Section section) {
+        section.allow("icon", "title", "description", "frame", "show-toast", "announce-to-chat", "hidden");
+        final CustomAdvancementDisplay.Builder builder = CustomAdvancementDisplay.display();
+        final String icon = section.string("icon");
+        if (icon != null) builder.icon(ItemStack.of(section.item("icon", icon)));
+        final String title = section.string("title");
+        if (title != null) builder.title(MiniMessage.miniMessage().deserialize(title));
+        final String description = section.string("description");
+        if (description != null) builder.description(MiniMessage.miniMessage().deserialize(description));
+        final String frame = section.string("frame");
+        if (frame != null) builder.frame(section.constant("frame", frame, CustomAdvancementDisplay.Frame.class));
+        final Boolean showToast = section.bool("show-toast");
+        if (showToast != null) builder.showToast(showToast);
+        final Boolean announceToChat = section.bool("announce-to-chat");
+        if (announceToChat != null) builder.announceToChat(announceToChat);
+        final Boolean hidden = section.bool("hidden");
+        if (hidden != null) builder.hidden(hidden);
+        return builder.build();
+    }
+
+    private static CustomAdvancementRewards rewards(final Section section) {
+        section.allow("experience", "recipes", "loot-tables", "loot");
+        final CustomAdvancementRewards.Builder builder = CustomAdvancementRewards.rewards();
+        if (section.contains("experience")) {
+            final long experience = section.number("experience", 0);
+            if (experience < 0 || experience > Integer.MAX_VALUE)
+                throw section.error("experience", "must be between 0 and " + Integer.MAX_VALUE);
+            builder.experience((int) experience);
+        }
+        final List<?> recipes = section.list("recipes");
+        if (recipes != null)
+            for (final String recipe : section.strings("recipes", recipes))
+                builder.addRecipe(section.key("recipes", recipe));
+        final List<?> lootTables = section.list("loot-tables");
+        if (lootTables != null)
+            for (final String lootTable : section.strings("loot-tables", lootTables))
+                builder.addLootTable(section.key("loot-tables", lootTable));
+        final List<?> loot = section.list("loot");
+        if (loot != null) {
+            for (int i = 0; i < loot.size(); i++) {
+                final String path = "loot[" + i + "]";
+                final Object entry = loot.get(i);
+                if (entry instanceof final String item) {
+                    builder.addLoot(ItemStack.of(section.item(path, item)));
+                    continue;
+                }
+                final Section stack = Section.of(section.file(), section.path(path), entry);
+                stack.allow("item", "amount");
+                final String item = stack.string("item");
+                if (item == null) throw stack.error("item", "missing");
+                final long amount = stack.contains("amount") ? stack.number("amount", 1) : 1;
+                if (amount > 99) throw stack.error("amount", "must be between 1 and 99");
+                builder.addLoot(ItemStack.of(stack.item("item", item), (int) amount));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * A map of a definition document, the accessors report the location of invalid values.
+     */
+    private record Section(Path file, String path, Map<?, ?> map) {
+        public static Section of(final Path file, final String path, final @Nullable Object value) {
+            if (!(value instanceof final Map<?, ?> map))
+                throw new IllegalArgumentException("Invalid advancement definition \"" + file + "\"" + (path.isEmpty() ? "" : " at \"" + path + "\"") + ": expected a map");
+            final Section section = new Section(file, path, map);
+            // YAML parses keys like 1, 10 or yes as numbers and booleans, which would never be found by name
+            for (final Object key : map.keySet())
+                if (!(key instanceof String))
+                    throw section.error(String.valueOf(key), "keys must be strings, quote the key");
+            return section;
+        }
+
+        public String path(final String key) {
+            return path.isEmpty() ? key : path + "." + key;
+        }
+
+        public IllegalArgumentException error(final String key, final String message) {
+            return new IllegalArgumentException("Invalid advancement definition \"" + file + "\" at \"" + path(key) + "\": " + message);
+        }
+
+        public List<String> keys() {
+            return map.keySet().stream().map(String.class::cast).toList();
+        }
+
+        public boolean contains(final String key) {
+            return map.get(key) != null;
+        }
+
+        public void allow(final String... keys) {
+            final Set<String> allowed = Set.of(keys);
+            for (final String key : keys())
+                if (!allowed.contains(key)) throw error(key, "unknown property");
+        }
+
+        public boolean isSection(final String key) {
+            return map.get(key) instanceof Map<?, ?>;
+        }
+
+        public @Nullable Section section(final String key) {
+            final Object value = map.get(key);
+            return value == null ? null : of(file, path(key), value);
+        }
+
+        public @Nullable String string(final String key) {
+            final Object value = map.get(key);
+            if (value == null || value instanceof String) return (String) value;
+            throw error(key, "expected a string");
+        }
+
+        public @Nullable Boolean bool(final String key) {
+            final Object value = map.get(key);
+            if (value == null || value instanceof Boolean) return (Boolean) value;
+            throw error(key, "expected true or false");
+        }
+
+        public long number(final String key, final long min) {
+            final Object value = map.get(key);
+            if (value == null) throw error(key, "missing");
+            // JSON numbers are parsed as doubles
+            if (!(value instanceof final Number number) || number.doubleValue() != Math.rint(number.doubleValue()))
+                throw error(key, "expected a whole number");
+            final long result = number.longValue();
+            if (result < min) throw error(key, "must be at least " + min);
+            return result;
+        }
+
+        public @Nullable List<?> list(final String key) {
+            final Object value = map.get(key);
+            if (value == null || value instanceof List<?>) return (List<?>) value;
+            throw error(key, "expected a list");
+        }
+
+        public List<String> strings(final String key, final List<?> list) {
+            final List<String> strings = new ArrayList<>(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                if (!(list.get(i) instanceof final String string))
+                    throw error(key + "[" + i + "]", "expected a string");
+                strings.add(string);
+            }
+            return strings;
+        }
+
+        public NamespacedKey key(final String key, final String value) {
+            final NamespacedKey parsed = NamespacedKey.fromString(value);
+            if (parsed == null) throw error(key, "invalid key \"" + value + "\"");
+            return parsed;
+        }
+
+        public Material item(final String key, final String value) {
+            final Material material = Material.matchMaterial(value);
+            if (material == null || !material.isItem()) throw error(key, "unknown item \"" + value + "\"");
+            return material;
+        }
+
+        public <E extends Enum<E>> E constant(final String key, final String value, final Class<E> type) {
+            try {
+                return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+            } catch (final IllegalArgumentException e) {
+                throw error(key, "expected one of " + Arrays.stream(type.getEnumConstants())
+                        .map(constant -> constant.name().toLowerCase(Locale.ROOT))
+                        .toList());
+            }
+        }
+    }
+}
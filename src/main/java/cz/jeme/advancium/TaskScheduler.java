@@ -0,0 +1,108 @@
+package cz.jeme.advancium;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the library's tasks on the right thread on both Paper and Folia.
+ * <p>
+ * On Folia, player related tasks run on the player's entity scheduler and global tasks
+ * on the global region scheduler. On Paper, all tasks run on the main thread.
+ * Asynchronous tasks use the async scheduler available on both.
+ * </p>
+ */
+final class TaskScheduler {
+    public static final boolean FOLIA = detectFolia();
+
+    private TaskScheduler() {
+        throw new AssertionError();
+    }
+
+    private static boolean detectFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (final ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs the task on the thread owning the player, immediately if the current thread already owns them.
+     * <p>
+     * If the player leaves before the task runs, the retired callback runs instead of the task,
+     * on Folia on an unspecified thread.
+     * </p>
+     *
+     * @param retired the callback run if the player left, {@code null} to drop the task
+     */
+    public static void runForPlayer(final Plugin plugin,
+                                    final Player player,
+                                    final Runnable task,
+                                    final @Nullable Runnable retired) {
+        if (FOLIA) {
+            if (Bukkit.isOwnedByCurrentRegion(player)) {
+                task.run();
+                return;
+            }
+            // the retired callback is not called when the player is already removed
+            final ScheduledTask scheduled = player.getScheduler().run(plugin, $ -> task.run(), retired);
+            if (scheduled == null && retired != null) retired.run();
+        } else {
+            if (Bukkit.isPrimaryThread()) task.run();
+            else Bukkit.getScheduler().runTask(plugin, () -> {
+                if (player.isOnline()) task.run();
+                else if (retired != null) retired.run();
+            });
+        }
+    }
+
+    /**
+     * Runs the task once on the global region (Folia) or on the main thread (Paper),
+     * immediately if the current thread is the main thread.
+     */
+    public static void runGlobal(final Plugin plugin, final Runnable task) {
+        if (FOLIA) Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+        else if (Bukkit.isPrimaryThread()) task.run();
+        else Bukkit.getScheduler().runTask(plugin, task);
+    }
+
+    /**
+     * Runs the task every tick on the global region (Folia) or on the main thread (Paper).
+     *
+     * @return an action cancelling the task
+     */
+    public static Runnable runGlobalTimer(final Plugin plugin, final Runnable task) {
+        if (FOLIA) {
+            final ScheduledTask scheduled = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, $ -> task.run(), 1, 1);
+            return scheduled::cancel;
+        }
+        final BukkitTask scheduled = Bukkit.getScheduler().runTaskTimer(plugin, task, 1, 1);
+        return scheduled::cancel;
+    }
+
+    /**
+     * Runs the task once off the server threads.
+     */
+    public static void runAsync(final Plugin plugin, final Runnable task) {
+        Bukkit.getAsyncScheduler().runNow(plugin, $ -> task.run());
+    }
+
+    /**
+     * Runs the task repeatedly off the server threads, the first run happens after one period.
+     *
+     * @return an action cancelling the task
+     */
+    public static Runnable runAsyncTimer(final Plugin plugin, final Runnable task, final Duration period) {
+        final long millis = Math.max(1, period.toMillis());
+        final ScheduledTask scheduled = Bukkit.getAsyncScheduler().runAtFixedRate(plugin, $ -> task.run(), millis, millis, TimeUnit.MILLISECONDS);
+        return scheduled::cancel;
+    }
+}
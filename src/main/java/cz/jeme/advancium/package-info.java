@@ -3,6 +3,11 @@
  * <p>
  * This package allows developers to define custom advancements, set criteria for completion,
  * and configure reward structures.
+ * <p>
+ * The library can only be used by a plugin while it is enabled. When a plugin is disabled,
+ * its advancements and tabs are unloaded, its watchdog is stopped and its stores are closed
+ * before its {@code onDisable} is called. Loading advancements or using stores from {@code onDisable}
+ * throws an {@link java.lang.IllegalStateException}.
  * </p>
  */
 @NotNullByDefault
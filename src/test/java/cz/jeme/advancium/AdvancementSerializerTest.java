@@ -0,0 +1,66 @@
+package cz.jeme.advancium;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdvancementSerializerTest extends SimulationTest {
+    @Test
+    void requirementsAreIteratedInStableOrder() {
+        final CustomAdvancementTab tab = tab("ordered").buildAndLoad(t -> {
+            advancement("ordered/forward")
+                    .requirements(groups(List.of("b", "a"), List.of("c")))
+                    .buildAndBindTo(t.root());
+            advancement("ordered/backward")
+                    .requirements(groups(List.of("c"), List.of("a", "b")))
+                    .buildAndBindTo(t.root());
+        });
+
+        for (final CustomAdvancement advancement : tab.advancements().subList(1, 3)) {
+            assertEquals(List.of("a", "b", "c"), List.copyOf(advancement.criteria()));
+            assertEquals(
+                    List.of(List.of("a", "b"), List.of("c")),
+                    advancement.requirements().stream().map(List::copyOf).toList()
+            );
+        }
+    }
+
+    @Test
+    void equalDefinitionsGenerateEqualJson() {
+        final CustomAdvancementTab tab = tab("json").buildAndLoad(t -> {
+            CustomAdvancement.advancement(key("json/forward"))
+                    .display(display())
+                    .requirements(groups(List.of("b", "a"), List.of("c")))
+                    .buildAndBindTo(t.root());
+            CustomAdvancement.advancement(key("json/backward"))
+                    .display(display())
+                    .requirements(groups(List.of("c"), List.of("a", "b")))
+                    .buildAndBindTo(t.root());
+        });
+
+        assertEquals(
+                AdvancementLoader.INSTANCE.json(tab.advancements().get(1)),
+                AdvancementLoader.INSTANCE.json(tab.advancements().get(2))
+        );
+    }
+
+    private static CustomAdvancementDisplay.Builder display() {
+        return CustomAdvancementDisplay.display()
+                .icon(Material.STONE)
+                .title(Component.text("Same"));
+    }
+
+    @SafeVarargs
+    private static Set<Set<String>> groups(final List<String>... groups) {
+        final Set<Set<String>> requirements = new LinkedHashSet<>();
+        for (final List<String> group : groups)
+            requirements.add(new LinkedHashSet<>(group));
+        return requirements;
+    }
+}
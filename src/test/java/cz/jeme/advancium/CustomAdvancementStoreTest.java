@@ -0,0 +1,133 @@
+package cz.jeme.advancium;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Timeout(60)
+class CustomAdvancementStoreTest extends SimulationTest {
+    private static Path directory() {
+        return plugin.getDataFolder().toPath().resolve("advancium");
+    }
+
+    @AfterAll
+    static void deleteStores() throws IOException {
+        CustomAdvancementStoreImpl.closeAll(plugin);
+        if (!Files.exists(directory())) return;
+        try (final Stream<Path> paths = Files.walk(directory())) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    @Test
+    void reopensAfterUncleanShutdown() throws IOException {
+        final CustomAdvancementStore store = CustomAdvancementStore.store(plugin, "unclean");
+        final UUID player = UUID.randomUUID();
+        store.set(player, "kills", 42);
+        store.add(player, "deaths", 3);
+        // the file of an open store is what a killed server process leaves behind
+        Files.copy(directory().resolve("unclean.store"), directory().resolve("unclean-copy.store"));
+
+        final CustomAdvancementStore copy = CustomAdvancementStore.store(plugin, "unclean-copy");
+
+        assertEquals(42, copy.get(player, "kills"));
+        assertEquals(3, copy.get(player, "deaths"));
+    }
+
+    @Test
+    void inconsistentStoreIsRestoredFromCheckpoint() throws IOException {
+        final CustomAdvancementStore store = CustomAdvancementStore.store(plugin, "restored");
+        final UUID player = UUID.randomUUID();
+        store.set(player, "kills", 1);
+        store.checkpoint().join();
+        store.set(player, "kills", 2);
+        Files.copy(directory().resolve("restored.checkpoint"), directory().resolve("restored-copy.checkpoint"));
+        corruptSize(Files.copy(directory().resolve("restored.store"), directory().resolve("restored-copy.store")));
+
+        final CustomAdvancementStore copy = CustomAdvancementStore.store(plugin, "restored-copy");
+
+        assertEquals(1, copy.get(player, "kills"));
+    }
+
+    @Test
+    void corruptCheckpointIsNotRestored() throws IOException {
+        final CustomAdvancementStore store = CustomAdvancementStore.store(plugin, "corrupt");
+        final UUID player = UUID.randomUUID();
+        store.set(player, "kills", 1);
+        store.checkpoint().join();
+        final Path checkpoint = Files.copy(directory().resolve("corrupt.checkpoint"), directory().resolve("corrupt-copy.checkpoint"));
+        final byte[] bytes = Files.readAllBytes(checkpoint);
+        bytes[100] ^= 1; // the padding of the table header, covered by the checksum
+        Files.write(checkpoint, bytes);
+        corruptSize(Files.copy(directory().resolve("corrupt.store"), directory().resolve("corrupt-copy.store")));
+
+        final CustomAdvancementStore copy = CustomAdvancementStore.store(plugin, "corrupt-copy");
+
+        assertEquals(0, copy.get(player, "kills"));
+        copy.set(player, "kills", 7);
+        assertEquals(7, copy.get(player, "kills"));
+    }
+
+    @Test
+    void growsDuringBurstOfInserts() throws Exception {
+        final CustomAdvancementStore store = CustomAdvancementStore.store(plugin, "burst");
+        final int threads = 8;
+        final int perThread = 20_000; // several times the initial capacity
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++)
+                        store.set(new UUID(thread, i), "value", i);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int t = 0; t < threads; t++)
+            for (int i = 0; i < perThread; i++)
+                assertEquals(i, store.get(new UUID(t, i), "value"));
+
+        store.close();
+        final CustomAdvancementStore reopened = CustomAdvancementStore.store(plugin, "burst");
+        for (int t = 0; t < threads; t++)
+            assertEquals(perThread - 1, reopened.get(new UUID(t, perThread - 1), "value"));
+    }
+
+    /**
+     * Changes the size in the header of the first table, so it no longer matches the records.
+     */
+    private static void corruptSize(final Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, 5), 64 + 8);
+        }
+    }
+}
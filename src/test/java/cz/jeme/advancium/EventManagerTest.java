@@ -0,0 +1,125 @@
+package cz.jeme.advancium;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class EventManagerTest extends SimulationTest {
+    private static final int THREADS = 4;
+    private static final int HANDLERS_PER_THREAD = 250;
+    private static final int BATCH_SIZE = 25;
+
+    @Test
+    @Timeout(60)
+    void subscribesWhileEventsAreDispatched() throws Exception {
+        final EventManager manager = EventManager.forPlugin(plugin);
+        final int handlerCount = THREADS * HANDLERS_PER_THREAD;
+        final List<Queue<Long>> seen = new ArrayList<>(handlerCount);
+        for (int i = 0; i < handlerCount; i++) seen.add(new ConcurrentLinkedQueue<>());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final AtomicBoolean subscribing = new AtomicBoolean(true);
+            // a single dispatching thread, about 10 000 events per second
+            final Future<Long> dispatcher = executor.submit(() -> {
+                start.await();
+                long id = 0;
+                while (subscribing.get()) {
+                    Bukkit.getPluginManager().callEvent(new TestEvent(id++));
+                    LockSupport.parkNanos(100_000);
+                }
+                return id;
+            });
+            final List<Future<?>> subscribers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int first = t * HANDLERS_PER_THREAD;
+                // half of the threads subscribe one by one, the other half in batches
+                final boolean batched = t % 2 == 1;
+                subscribers.add(executor.submit(() -> {
+                    start.await();
+                    final List<EventManager.Subscription> batch = new ArrayList<>();
+                    for (int i = first; i < first + HANDLERS_PER_THREAD; i++) {
+                        final Queue<Long> handlerSeen = seen.get(i);
+                        if (!batched) {
+                            manager.subscribe(TestEvent.class, EventPriority.NORMAL, event -> handlerSeen.add(event.id));
+                        } else {
+                            batch.add(EventManager.Subscription.of(
+                                    TestEvent.class,
+                                    EventPriority.NORMAL,
+                                    null,
+                                    false,
+                                    event -> handlerSeen.add(event.id)
+                            ));
+                            if (batch.size() == BATCH_SIZE) {
+                                manager.subscribeAll(List.copyOf(batch));
+                                batch.clear();
+                            }
+                        }
+                        LockSupport.parkNanos(20_000);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> subscriber : subscribers) subscriber.get();
+            subscribing.set(false);
+            final long dispatched = dispatcher.get();
+            // every handler is subscribed now, so it has to receive this one
+            Bukkit.getPluginManager().callEvent(new TestEvent(dispatched));
+
+            for (int i = 0; i < handlerCount; i++) {
+                final List<Long> ids = List.copyOf(seen.get(i));
+                assertFalse(ids.isEmpty(), "Handler " + i + " was lost");
+                // once subscribed, a handler receives every following event exactly once
+                final long firstId = ids.getFirst();
+                for (int j = 0; j < ids.size(); j++)
+                    assertEquals(firstId + j, (long) ids.get(j), "Handler " + i + " missed or repeated an event");
+                assertEquals(dispatched, (long) ids.getLast(), "Handler " + i + " missed the last event");
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    static final class TestEvent extends Event {
+        private static final HandlerList HANDLER_LIST = new HandlerList();
+
+        private final long id;
+
+        private TestEvent(final long id) {
+            super(true);
+            this.id = id;
+        }
+
+        public static HandlerList getHandlerList() {
+            return HANDLER_LIST;
+        }
+
+        @Override
+        public @NotNull HandlerList getHandlers() {
+            return HANDLER_LIST;
+        }
+    }
+}
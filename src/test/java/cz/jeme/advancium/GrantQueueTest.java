@@ -0,0 +1,114 @@
+package cz.jeme.advancium;
+
+import cz.jeme.advancium.testkit.SimulatedPlayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrantQueueTest extends SimulationTest {
+    @Test
+    void mergedGrantsCompleteAllFutures() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Merged");
+        final AtomicInteger grants = new AtomicInteger();
+        final CustomAdvancement advancement = advancement("queue/merge")
+                .criteria(Set.of("a"))
+                .onCriterionGranted((event, a) -> grants.incrementAndGet())
+                .buildAndBindTo(tab("queue-merge").buildAndLoad());
+
+        final CompletableFuture<Boolean> first = advancement.grantAsync(player, "a");
+        final CompletableFuture<Boolean> second = advancement.grantAsync(player.getUniqueId(), "a");
+        assertFalse(first.isDone());
+        server.getScheduler().performOneTick();
+
+        assertTrue(first.join());
+        assertTrue(second.join());
+        assertEquals(1, grants.get());
+        assertTrue(advancement.isAwarded(player, "a"));
+    }
+
+    @Test
+    void lastChangeWins() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Revoked");
+        final AtomicInteger grants = new AtomicInteger();
+        final CustomAdvancement advancement = advancement("queue/last")
+                .criteria(Set.of("a"))
+                .onCriterionGranted((event, a) -> grants.incrementAndGet())
+                .buildAndBindTo(tab("queue-last").buildAndLoad());
+
+        final CompletableFuture<Boolean> grant = advancement.grantAsync(player, "a");
+        final CompletableFuture<Boolean> revoke = advancement.revokeAsync(player, "a");
+        server.getScheduler().performOneTick();
+
+        // the grant was superseded, the revoke found nothing to revoke
+        assertFalse(grant.join());
+        assertFalse(revoke.join());
+        assertEquals(0, grants.get());
+        assertFalse(advancement.isAwarded(player, "a"));
+    }
+
+    @Test
+    void bulkGrantReachesAllPlayers() {
+        final SimulatedPlayer first = server.addSimulatedPlayer("BulkFirst");
+        final SimulatedPlayer second = server.addSimulatedPlayer("BulkSecond");
+        final CustomAdvancement advancement = advancement("queue/bulk")
+                .criteria(Set.of("a", "b"))
+                .buildAndBindTo(tab("queue-bulk").buildAndLoad());
+
+        advancement.grant(List.of(first, second));
+        assertFalse(advancement.isDone(first));
+        server.getScheduler().performOneTick();
+
+        assertTrue(advancement.isDone(first));
+        assertTrue(advancement.isDone(second));
+    }
+
+    @Test
+    void offlinePlayerCompletesWithFalse() {
+        final CustomAdvancement advancement = advancement("queue/offline")
+                .criteria(Set.of("a"))
+                .buildAndBindTo(tab("queue-offline").buildAndLoad());
+
+        final CompletableFuture<Boolean> future = advancement.grantAsync(UUID.randomUUID(), "a");
+        server.getScheduler().performOneTick();
+
+        assertFalse(future.join());
+    }
+
+    @Test
+    void drainingResumesAfterIdleTicks() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Resumed");
+        final CustomAdvancement advancement = advancement("queue/resume")
+                .criteria(Set.of("a", "b"))
+                .buildAndBindTo(tab("queue-resume").buildAndLoad());
+
+        assertTrue(drain(advancement.grantAsync(player, "a")));
+        // the drain task stops once idle and must start again with the next request
+        server.getScheduler().performTicks(5);
+        assertTrue(drain(advancement.grantAsync(player, "b")));
+        assertTrue(advancement.isDone(player));
+    }
+
+    @Test
+    void unknownCriterionIsRejectedImmediately() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Unknown");
+        final CustomAdvancement advancement = advancement("queue/unknown")
+                .criteria(Set.of("a"))
+                .buildAndBindTo(tab("queue-unknown").buildAndLoad());
+
+        assertThrows(IllegalArgumentException.class, () -> advancement.grantAsync(player, "b"));
+        assertThrows(IllegalArgumentException.class, () -> advancement.grant(List.of(player), Set.of("a", "b")));
+        server.getScheduler().performOneTick();
+        assertFalse(advancement.isAwarded(player, "a"));
+    }
+
+    private static boolean drain(final CompletableFuture<Boolean> future) {
+        server.getScheduler().performOneTick();
+        return future.join();
+    }
+}
@@ -0,0 +1,69 @@
+package cz.jeme.advancium;
+
+import cz.jeme.advancium.testkit.SimulatedPlayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressCacheTest extends SimulationTest {
+    @Test
+    void grantingAwardedCriterionDoesNotTouchProgress() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Granted");
+        final CustomAdvancement advancement = advancement("cache/grant")
+                .criteria(Set.of("a", "b"))
+                .buildAndBindTo(tab("cache-grant").buildAndLoad());
+        assertTrue(advancement.grant(player, "a"));
+        final int lookups = player.progressLookups();
+
+        assertFalse(advancement.grant(player, "a"));
+        assertTrue(advancement.isAwarded(player, "a"));
+        assertFalse(advancement.isDone(player));
+
+        assertEquals(lookups, player.progressLookups());
+    }
+
+    @Test
+    void revokingMissingCriterionDoesNotTouchProgress() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Revoked");
+        final CustomAdvancement advancement = advancement("cache/revoke")
+                .criteria(Set.of("a"))
+                .buildAndBindTo(tab("cache-revoke").buildAndLoad());
+        assertFalse(advancement.isAwarded(player, "a"));
+        final int lookups = player.progressLookups();
+
+        assertFalse(advancement.revoke(player, "a"));
+        assertFalse(advancement.isAwarded(player, "a"));
+
+        assertEquals(lookups, player.progressLookups());
+    }
+
+    @Test
+    void grantsBypassingLibraryUpdateCache() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Bypassed");
+        final CustomAdvancement advancement = advancement("cache/bypass")
+                .criteria(Set.of("a"))
+                .buildAndBindTo(tab("cache-bypass").buildAndLoad());
+        assertFalse(advancement.isAwarded(player, "a"));
+
+        // awarded by the server, e.g. by a command
+        assertTrue(player.getAdvancementProgress(advancement.asBukkit()).awardCriteria("a"));
+
+        assertTrue(advancement.isAwarded(player, "a"));
+        assertTrue(advancement.isDone(player));
+    }
+
+    @Test
+    void cancelledGrantIsNotCached() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Cancelled");
+        final CustomAdvancement advancement = advancement("cache/cancel")
+                .criteria(Set.of("a"))
+                .onCriterionGranted((event, a) -> event.setCancelled(true))
+                .buildAndBindTo(tab("cache-cancel").buildAndLoad());
+
+        assertFalse(advancement.grant(player, "a"));
+
+        assertFalse(advancement.isAwarded(player, "a"));
+    }
+}
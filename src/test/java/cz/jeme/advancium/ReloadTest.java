@@ -0,0 +1,76 @@
+package cz.jeme.advancium;
+
+import cz.jeme.advancium.testkit.SimulatedPlayer;
+import org.bukkit.advancement.Advancement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReloadTest extends SimulationTest {
+    @Test
+    void onlyChangedAdvancementsAreReplaced() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Reloaded");
+        final CustomAdvancementTab previous = tab("reload").buildAndLoad(t -> {
+            advancement("reload/same").criteria(Set.of("a")).buildAndBindTo(t.root());
+            final CustomAdvancement changed = advancement("reload/changed").criteria(Set.of("a")).buildAndBindTo(t.root());
+            advancement("reload/below").criteria(Set.of("a")).buildAndBindTo(changed);
+            advancement("reload/removed").buildAndBindTo(t.root());
+        });
+        for (final String key : new String[]{"reload/same", "reload/changed", "reload/below"})
+            assertTrue(find(previous, key).grant(player, "a"));
+        final Advancement same = server.getAdvancement(key("reload/same"));
+        final Advancement below = server.getAdvancement(key("reload/below"));
+
+        final CustomAdvancementTab reloaded = tab("reload").buildAndReload(previous, t -> {
+            advancement("reload/same").criteria(Set.of("a")).buildAndBindTo(t.root());
+            final CustomAdvancement changed = advancement("reload/changed").criteria(Set.of("a", "b")).buildAndBindTo(t.root());
+            advancement("reload/below").criteria(Set.of("a")).buildAndBindTo(changed);
+            advancement("reload/added").buildAndBindTo(t.root());
+        });
+
+        assertSame(same, server.getAdvancement(key("reload/same")));
+        // removing the changed parent from the server removes its children as well
+        assertNotSame(below, server.getAdvancement(key("reload/below")));
+        assertNull(server.getAdvancement(key("reload/removed")));
+        assertNotNull(server.getAdvancement(key("reload/added")));
+
+        assertTrue(find(reloaded, "reload/same").isAwarded(player, "a"));
+        assertFalse(find(reloaded, "reload/changed").isAwarded(player, "a"));
+        assertFalse(find(reloaded, "reload/below").isAwarded(player, "a"));
+        assertThrows(IllegalStateException.class, () -> previous.root().asBukkit());
+    }
+
+    @Test
+    void previousHandlersAreUnsubscribed() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Handled");
+        final AtomicInteger previousGrants = new AtomicInteger();
+        final AtomicInteger reloadedGrants = new AtomicInteger();
+        final CustomAdvancementTab previous = tab("handlers").buildAndLoad(t ->
+                advancement("handlers/child")
+                        .criteria(Set.of("a"))
+                        .onCriterionGranted((event, advancement) -> previousGrants.incrementAndGet())
+                        .buildAndBindTo(t.root())
+        );
+
+        final CustomAdvancementTab reloaded = tab("handlers").buildAndReload(previous, t ->
+                advancement("handlers/child")
+                        .criteria(Set.of("a"))
+                        .onCriterionGranted((event, advancement) -> reloadedGrants.incrementAndGet())
+                        .buildAndBindTo(t.root())
+        );
+        assertTrue(find(reloaded, "handlers/child").grant(player, "a"));
+
+        assertEquals(0, previousGrants.get());
+        assertEquals(1, reloadedGrants.get());
+    }
+
+    private static CustomAdvancement find(final CustomAdvancementTab tab, final String key) {
+        return tab.advancements().stream()
+                .filter(advancement -> advancement.key().equals(key(key)))
+                .findFirst()
+                .orElseThrow();
+    }
+}
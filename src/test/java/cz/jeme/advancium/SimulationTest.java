@@ -0,0 +1,48 @@
+package cz.jeme.advancium;
+
+import cz.jeme.advancium.testkit.SimulationServer;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.mockbukkit.mockbukkit.MockBukkit;
+
+/**
+ * Base of the tests running the library on a {@link SimulationServer}.
+ * <p>
+ * The library keeps the server it was first used with, so all tests of a class share a single server
+ * and each class runs in its own JVM. Tests use distinct keys, so they do not depend on their order.
+ * </p>
+ */
+abstract class SimulationTest {
+    protected static SimulationServer server;
+    protected static Plugin plugin;
+
+    @BeforeAll
+    static void startServer() {
+        server = MockBukkit.mock(new SimulationServer());
+        plugin = MockBukkit.createMockPlugin("AdvanciumTest");
+    }
+
+    @AfterAll
+    static void stopServer() {
+        MockBukkit.unmock();
+    }
+
+    protected static NamespacedKey key(final String key) {
+        return new NamespacedKey(plugin, key);
+    }
+
+    protected static CustomAdvancement.Builder advancement(final String key) {
+        return CustomAdvancement.advancement(key(key))
+                .display(CustomAdvancementDisplay.display()
+                        .icon(Material.STONE)
+                        .title(Component.text(key)));
+    }
+
+    protected static CustomAdvancementTab.Builder tab(final String name) {
+        return CustomAdvancementTab.tab(plugin).root(advancement(name + "/root"));
+    }
+}
@@ -0,0 +1,148 @@
+package cz.jeme.advancium;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TabDefinitionsTest extends SimulationTest {
+    private static final String ROOT = """
+            root:
+              display:
+                icon: stone
+                title: Root
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void validDefinitionIsLoaded() throws Exception {
+        final Path file = write("defined.yml", ROOT + """
+                advancements:
+                  child:
+                    criteria: [a, b]
+                  grandchild:
+                    parent: child
+                """);
+
+        final CustomAdvancementTab tab = await(CustomAdvancementTab.loadDefinition(plugin, file));
+
+        assertEquals(key("defined/root"), tab.root().key());
+        assertNotNull(server.getAdvancement(key("defined/child")));
+        assertNotNull(server.getAdvancement(key("defined/grandchild")));
+        assertEquals(3, tab.advancements().size());
+    }
+
+    @Test
+    void unknownParentIsReported() throws IOException {
+        final Path file = write("orphan.yml", ROOT + """
+                advancements:
+                  child:
+                    parent: missing
+                """);
+
+        assertError(file, "at \"advancements.child.parent\": unknown advancement \"missing\"");
+    }
+
+    @Test
+    void cycleIsReported() throws IOException {
+        final Path file = write("cycle.yml", ROOT + """
+                advancements:
+                  first:
+                    parent: second
+                  second:
+                    parent: first
+                """);
+
+        assertError(file, "the advancement is its own ancestor");
+    }
+
+    @Test
+    void unknownPropertyIsReported() throws IOException {
+        final Path file = write("property.yml", ROOT + """
+                advancements:
+                  child:
+                    colour: red
+                """);
+
+        assertError(file, "at \"advancements.child.colour\": unknown property");
+    }
+
+    @Test
+    void wrongTypeIsReported() throws IOException {
+        final Path file = write("type.json", """
+                {
+                  "root": { "display": { "icon": "stone", "title": "Root" } },
+                  "advancements": { "child": { "rewards": { "experience": 1.5 } } }
+                }
+                """);
+
+        assertError(file, "at \"advancements.child.rewards.experience\": expected a whole number");
+    }
+
+    @Test
+    void missingRootIsReported() throws IOException {
+        final Path file = write("rootless.yml", """
+                advancements:
+                  child: {}
+                """);
+
+        assertError(file, "at \"root\": missing");
+    }
+
+    @Test
+    void invalidFileNameIsReported() throws IOException {
+        final Path file = write("Invalid Name.yml", ROOT);
+
+        assertError(file, "Invalid advancement definition file name");
+    }
+
+    @Test
+    void invalidFileLoadsNoTab() throws IOException {
+        write("first.yml", ROOT);
+        write("second.yml", ROOT + """
+                advancements:
+                  child:
+                    parent: missing
+                """);
+
+        final CompletableFuture<List<CustomAdvancementTab>> future = CustomAdvancementTab.loadDefinitions(plugin, directory);
+
+        assertThrows(CompletionException.class, future::join);
+        assertNull(server.getAdvancement(key("first/root")));
+    }
+
+    private Path write(final String name, final String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    private static void assertError(final Path file, final String message) {
+        final CompletionException e = assertThrows(
+                CompletionException.class,
+                () -> CustomAdvancementTab.loadDefinition(plugin, file).join()
+        );
+        final IllegalArgumentException cause = assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertTrue(cause.getMessage().contains(message), cause.getMessage());
+    }
+
+    /**
+     * Waits for a future completed on the main thread, ticking the server meanwhile.
+     */
+    private static <T> T await(final CompletableFuture<T> future) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!future.isDone() && System.nanoTime() < deadline) {
+            server.getScheduler().performOneTick();
+            Thread.sleep(1);
+        }
+        return future.get();
+    }
+}
@@ -0,0 +1,63 @@
+package cz.jeme.advancium;
+
+import cz.jeme.advancium.testkit.SimulatedPlayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnloadTest extends SimulationTest {
+    @Test
+    void unloadingTabRemovesAllAdvancements() {
+        final int before = server.advancementCount();
+        final CustomAdvancementTab tab = tab("unload").buildAndLoad(t -> {
+            final CustomAdvancement first = advancement("unload/first").buildAndBindTo(t.root());
+            advancement("unload/second").buildAndBindTo(first);
+            advancement("unload/third").buildAndBindTo(first);
+        });
+        assertEquals(before + 4, server.advancementCount());
+
+        tab.unload();
+
+        assertEquals(before, server.advancementCount());
+        assertNull(server.getAdvancement(key("unload/root")));
+        assertNull(server.getAdvancement(key("unload/third")));
+        assertThrows(IllegalStateException.class, () -> tab.root().asBukkit());
+    }
+
+    @Test
+    void disablingPluginRemovesItsAdvancements() {
+        final CustomAdvancementTab tab = tab("disable").buildAndLoad(t ->
+                advancement("disable/child").buildAndBindTo(t.root())
+        );
+
+        server.getPluginManager().disablePlugin(plugin);
+        try {
+            assertNull(server.getAdvancement(key("disable/root")));
+            assertNull(server.getAdvancement(key("disable/child")));
+            assertThrows(IllegalStateException.class, () -> tab.root().asBukkit());
+        } finally {
+            server.getPluginManager().enablePlugin(plugin);
+        }
+    }
+
+    @Test
+    void savedProgressSurvivesRestart() {
+        final SimulatedPlayer player = server.addSimulatedPlayer("Restarted", UUID.randomUUID());
+        final CustomAdvancement child = tab("restart").buildAndLoad(t ->
+                advancement("restart/child").requirements("first", "second").buildAndBindTo(t.root())
+        ).advancements().get(1);
+        assertTrue(child.grant(player, "first"));
+
+        // the advancements must stay on the server until it has saved the progress
+        server.restart();
+        assertThrows(IllegalStateException.class, child::asBukkit);
+
+        final CustomAdvancement reloaded = tab("restart").buildAndLoad(t ->
+                advancement("restart/child").requirements("first", "second").buildAndBindTo(t.root())
+        ).advancements().get(1);
+        assertTrue(reloaded.isAwarded(player, "first"));
+        assertFalse(reloaded.isAwarded(player, "second"));
+    }
+}
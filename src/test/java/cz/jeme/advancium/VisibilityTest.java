@@ -0,0 +1,74 @@
+package cz.jeme.advancium;
+
+import cz.jeme.advancium.testkit.SimulatedPlayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisibilityTest extends SimulationTest {
+    @Test
+    void batchLoadShowsTabToMatchingPlayers() {
+        final SimulatedPlayer shown = server.addSimulatedPlayer("BatchShown");
+        final SimulatedPlayer hidden = server.addSimulatedPlayer("BatchHidden");
+        final CustomAdvancementBatch batch = CustomAdvancementBatch.batch();
+        final CustomAdvancementTab tab = tab("batch")
+                .visibility(player -> player.getName().endsWith("Shown"))
+                .batch(batch)
+                .buildAndLoad();
+        advancement("batch/child").buildAndBindTo(tab.root());
+
+        batch.load();
+
+        assertTrue(tab.root().isDone(shown));
+        assertFalse(tab.root().isDone(hidden));
+    }
+
+    @Test
+    void asyncLoadShowsTabOnceLoaded() throws Exception {
+        final SimulatedPlayer shown = server.addSimulatedPlayer("AsyncShown");
+        final CompletableFuture<CustomAdvancementTab> future = tab("async")
+                .visibility(player -> player.getName().endsWith("Shown"))
+                .buildAndLoadAsync(t -> advancement("async/child").buildAndBindTo(t.root()));
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!future.isDone() && System.nanoTime() < deadline) {
+            server.getScheduler().performOneTick();
+            Thread.sleep(1);
+        }
+
+        assertTrue(future.get().root().isDone(shown));
+    }
+
+    @Test
+    void joiningPlayerSeesTab() {
+        final CustomAdvancementTab tab = tab("join")
+                .visibility(player -> player.getName().endsWith("Shown"))
+                .buildAndLoad();
+
+        final SimulatedPlayer shown = server.addSimulatedPlayer("JoinShown");
+        final SimulatedPlayer hidden = server.addSimulatedPlayer("JoinHidden");
+
+        assertTrue(tab.isVisible(shown));
+        assertTrue(tab.root().isDone(shown));
+        assertFalse(tab.isVisible(hidden));
+        assertFalse(tab.root().isDone(hidden));
+    }
+
+    @Test
+    void changedVisibilityHidesTab() {
+        final AtomicBoolean visible = new AtomicBoolean(true);
+        final SimulatedPlayer player = server.addSimulatedPlayer("Changing");
+        final CustomAdvancementTab tab = tab("changing")
+                .visibility(p -> visible.get())
+                .buildAndLoad();
+        assertTrue(tab.root().isDone(player));
+
+        visible.set(false);
+        tab.updateVisibility(player);
+
+        assertFalse(tab.root().isDone(player));
+    }
+}
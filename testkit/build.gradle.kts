@@ -0,0 +1,41 @@
+plugins {
+    `java-library`
+}
+
+repositories {
+    mavenCentral()
+    maven("https://repo.papermc.io/repository/maven-public/") {
+        name = "papermc-repo"
+    }
+}
+
+dependencies {
+    api(project(":"))
+    api("org.mockbukkit.mockbukkit:mockbukkit-v1.21:4.45.1")
+    api("io.papermc.paper:paper-api:1.21.4-R0.1-SNAPSHOT")
+}
+
+val targetJavaVersion = 21
+java {
+    val javaVersion = JavaVersion.toVersion(targetJavaVersion)
+    sourceCompatibility = javaVersion
+    targetCompatibility = javaVersion
+    if (JavaVersion.current() < javaVersion) {
+        toolchain {
+            languageVersion.set(JavaLanguageVersion.of(targetJavaVersion))
+        }
+    }
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+    options.release.set(targetJavaVersion)
+}
+
+tasks.register<JavaExec>("simulate") {
+    group = "verification"
+    description = "Runs a load simulation, options are passed using -Psimulation=\"players=500 ticks=1200\"."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass = "cz.jeme.advancium.testkit.LoadSimulation"
+    args(providers.gradleProperty("simulation").map { it.trim().split(Regex("\\s+")) }.getOrElse(emptyList()))
+}
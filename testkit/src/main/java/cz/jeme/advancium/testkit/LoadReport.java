@@ -0,0 +1,61 @@
+package cz.jeme.advancium.testkit;
+
+import java.time.Duration;
+
+/**
+ * The results of a {@link LoadSimulation}.
+ * <p>
+ * The tick times, the allocations and the peak heap only cover the measured ticks, not the warmup.
+ * The peak heap is the sum of the peaks of the individual heap memory pools, so it is an upper bound
+ * of the real peak.
+ * </p>
+ *
+ * @param advancements   the number of advancements loaded, including the roots
+ * @param players        the number of simulated players
+ * @param ticks          the number of measured ticks
+ * @param events         the number of events called during the measured ticks
+ * @param buildTime      the time spent building and loading the tabs
+ * @param meanTick       the mean tick time
+ * @param p99Tick        the 99th percentile of the tick time
+ * @param maxTick        the maximum tick time
+ * @param allocatedBytes the number of bytes allocated by the server thread during the measured ticks
+ * @param allocationRate the number of bytes allocated by the server thread per second of tick time
+ * @param peakHeap       the peak heap usage in bytes
+ */
+public record LoadReport(int advancements,
+                         int players,
+                         int ticks,
+                         long events,
+                         Duration buildTime,
+                         Duration meanTick,
+                         Duration p99Tick,
+                         Duration maxTick,
+                         long allocatedBytes,
+                         double allocationRate,
+                         long peakHeap) {
+    /**
+     * Formats this report for humans.
+     *
+     * @return the formatted report
+     */
+    public String summary() {
+        return String.format(
+                """
+                        %d advancements, %d players, %d ticks, %d events
+                        build:       %.1f ms
+                        tick mean:   %.3f ms
+                        tick p99:    %.3f ms
+                        tick max:    %.3f ms
+                        allocations: %.1f MiB (%.1f MiB/s)
+                        peak heap:   %.1f MiB""",
+                advancements, players, ticks, events,
+                millis(buildTime), millis(meanTick), millis(p99Tick), millis(maxTick),
+                allocatedBytes / 1048576D, allocationRate / 1048576D,
+                peakHeap / 1048576D
+        );
+    }
+
+    private static double millis(final Duration duration) {
+        return duration.toNanos() / 1e6;
+    }
+}
@@ -0,0 +1,396 @@
+package cz.jeme.advancium.testkit;
+
+import com.sun.management.ThreadMXBean;
+import cz.jeme.advancium.CustomAdvancement;
+import cz.jeme.advancium.CustomAdvancementDisplay;
+import cz.jeme.advancium.CustomAdvancementTab;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.plugin.Plugin;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.plugin.PluginManagerMock;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Simulates a busy server using the library and reports its tick time, allocation rate and peak heap.
+ * <p>
+ * The simulation builds the tabs using {@link CustomAdvancementTab#tab(Plugin)}, adds the players and then
+ * replays a stream of events against the registered handlers, a fixed number of events per tick.
+ * The events are created once per player and event source up front, so the measured allocations
+ * come from the library and the event dispatch, not from creating the events.
+ * </p>
+ * <p>
+ * By default, every advancement has a counter incremented by each {@link BlockBreakEvent},
+ * so the stream also grants criteria as the counters reach their milestones.
+ * </p>
+ * <p>
+ * The library keeps the server it was first used with, so only one simulation can run per JVM.
+ * </p>
+ * Example:
+ * <pre>{@code
+ * LoadReport report = LoadSimulation.simulation()
+ *     .tabs(4)
+ *     .advancements(500)
+ *     .players(300)
+ *     .eventsPerTick(200)
+ *     .run();
+ * System.out.println(report.summary());
+ * }</pre>
+ */
+public final class LoadSimulation {
+    private static final AtomicBoolean RAN = new AtomicBoolean(false);
+    private static final Material[] ICONS = {
+            Material.STONE, Material.DIRT, Material.OAK_LOG, Material.IRON_INGOT, Material.GOLD_INGOT,
+            Material.DIAMOND, Material.EMERALD, Material.REDSTONE, Material.BOOK, Material.BREAD
+    };
+
+    private final int tabs;
+    private final int advancements;
+    private final int branching;
+    private final int players;
+    private final int warmupTicks;
+    private final int ticks;
+    private final int eventsPerTick;
+    private final long seed;
+    private final BiConsumer<Integer, CustomAdvancement.Builder> node;
+    private final List<Function<? super Player, ? extends Event>> sources;
+
+    private LoadSimulation(final Builder builder) {
+        tabs = builder.tabs;
+        advancements = builder.advancements;
+        branching = builder.branching;
+        players = builder.players;
+        warmupTicks = builder.warmupTicks;
+        ticks = builder.ticks;
+        eventsPerTick = builder.eventsPerTick;
+        seed = builder.seed;
+        node = builder.node;
+        sources = builder.sources.isEmpty()
+                ? List.of(player -> new BlockBreakEvent(player.getLocation().getBlock(), player))
+                : List.copyOf(builder.sources);
+    }
+
+    /**
+     * Creates a new builder of a simulation.
+     *
+     * @return the builder
+     */
+    public static Builder simulation() {
+        return new Builder();
+    }
+
+    /**
+     * Runs a simulation configured by the arguments and prints its report.
+     * <p>
+     * Each argument is a {@code key=value} pair, the keys are {@code tabs}, {@code advancements}, {@code branching},
+     * {@code players}, {@code warmup}, {@code ticks}, {@code events} and {@code seed}.
+     * </p>
+     *
+     * @param args the arguments
+     */
+    public static void main(final String[] args) {
+        final Builder builder = simulation();
+        for (final String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator == -1) throw new IllegalArgumentException("Expected key=value: \"" + arg + "\"");
+            final String value = arg.substring(separator + 1);
+            switch (arg.substring(0, separator)) {
+                case "tabs" -> builder.tabs(Integer.parseInt(value));
+                case "advancements" -> builder.advancements(Integer.parseInt(value));
+                case "branching" -> builder.branching(Integer.parseInt(value));
+                case "players" -> builder.players(Integer.parseInt(value));
+                case "warmup" -> builder.warmupTicks(Integer.parseInt(value));
+                case "ticks" -> builder.ticks(Integer.parseInt(value));
+                case "events" -> builder.eventsPerTick(Integer.parseInt(value));
+                case "seed" -> builder.seed(Long.parseLong(value));
+                default -> throw new IllegalArgumentException("Unknown option: \"" + arg + "\"");
+            }
+        }
+        System.out.println(builder.run().summary());
+    }
+
+    private LoadReport run() {
+        if (!RAN.compareAndSet(false, true))
+            throw new IllegalStateException("Only one simulation can run per JVM");
+        final SimulationServer server = MockBukkit.mock(new SimulationServer());
+        try {
+            final Plugin plugin = MockBukkit.createMockPlugin("AdvanciumLoadSimulation");
+            server.addSimpleWorld("world");
+
+            final long buildStart = System.nanoTime();
+            for (int tab = 0; tab < tabs; tab++)
+                buildTab(plugin, tab);
+            final Duration buildTime = Duration.ofNanos(System.nanoTime() - buildStart);
+
+            final List<Event> stream = new ArrayList<>();
+            for (int i = 0; i < players; i++) {
+                final SimulatedPlayer player = server.addSimulatedPlayer("Player" + i);
+                for (final Function<? super Player, ? extends Event> source : sources)
+                    stream.add(source.apply(player));
+            }
+            final Event[] events = stream.toArray(Event[]::new);
+            return simulate(server, events, buildTime);
+        } finally {
+            MockBukkit.unmock();
+        }
+    }
+
+    private void buildTab(final Plugin plugin, final int tab) {
+        CustomAdvancementTab.tab(plugin)
+                .root(CustomAdvancement.advancement(new NamespacedKey(plugin, "tab_" + tab + "/root"))
+                        .display(CustomAdvancementDisplay.display()
+                                .icon(Material.GRASS_BLOCK)
+                                .title(Component.text("Tab " + tab))))
+                .buildAndLoad(t -> {
+                    final List<CustomAdvancement> built = new ArrayList<>(advancements + 1);
+                    built.add(t.root());
+                    for (int i = 1; i <= advancements; i++) {
+                        final CustomAdvancement.Builder builder = CustomAdvancement.advancement(
+                                new NamespacedKey(plugin, "tab_" + tab + "/advancement_" + i)
+                        );
+                        node.accept(i, builder);
+                        built.add(builder.buildAndBindTo(built.get((i - 1) / branching)));
+                    }
+                });
+    }
+
+    private LoadReport simulate(final SimulationServer server, final Event[] events, final Duration buildTime) {
+        final PluginManagerMock pluginManager = server.getPluginManager();
+        final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        final SplittableRandom random = new SplittableRandom(seed);
+        final long[] tickNanos = new long[ticks];
+        long allocatedStart = 0;
+
+        for (int tick = -warmupTicks; tick < ticks; tick++) {
+            if (tick == 0) {
+                heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+                allocatedStart = threads.getCurrentThreadAllocatedBytes();
+            }
+            final long start = System.nanoTime();
+            for (int i = 0; i < eventsPerTick; i++)
+                pluginManager.callEvent(events[random.nextInt(events.length)]);
+            server.getScheduler().performOneTick();
+            final long nanos = System.nanoTime() - start;
+            // the mock records all called events for assertions
+            pluginManager.clearEvents();
+            if (tick >= 0) tickNanos[tick] = nanos;
+        }
+
+        final long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedStart;
+        final long peakHeap = heapPools.stream()
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        final long total = Arrays.stream(tickNanos).sum();
+        final long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+        return new LoadReport(
+                server.advancementCount(),
+                players,
+                ticks,
+                (long) ticks * eventsPerTick,
+                buildTime,
+                Duration.ofNanos(ticks == 0 ? 0 : total / ticks),
+                Duration.ofNanos(ticks == 0 ? 0 : sorted[Math.max(0, (int) Math.ceil(ticks * 0.99) - 1)]),
+                Duration.ofNanos(ticks == 0 ? 0 : sorted[ticks - 1]),
+                allocated,
+                total == 0 ? 0 : allocated * 1e9 / total,
+                peakHeap
+        );
+    }
+
+    /**
+     * The default advancement of a simulation, with a counter incremented by each {@link BlockBreakEvent}.
+     *
+     * @param index   the index of the advancement in its tab, starting at {@code 1}
+     * @param builder the builder of the advancement
+     */
+    private static void defaultNode(final int index, final CustomAdvancement.Builder builder) {
+        builder.display(CustomAdvancementDisplay.display()
+                        .icon(ICONS[index % ICONS.length])
+                        .title(Component.text("Advancement " + index))
+                        .description(Component.text("Break " + (64 << index % 6) + " blocks")))
+                .counter("blocks", 64L << index % 6, 4)
+                .on(BlockBreakEvent.class, (event, advancement) -> advancement.increment(event.getPlayer(), "blocks"));
+    }
+
+    /**
+     * Builder of a {@link LoadSimulation}.
+     */
+    public static final class Builder {
+        private int tabs = 2;
+        private int advancements = 1000;
+        private int branching = 4;
+        private int players = 200;
+        private int warmupTicks = 200;
+        private int ticks = 1200;
+        private int eventsPerTick = 50;
+        private long seed = 0;
+        private BiConsumer<Integer, CustomAdvancement.Builder> node = LoadSimulation::defaultNode;
+        private final List<Function<? super Player, ? extends Event>> sources = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of tabs, the default is {@code 2}.
+         *
+         * @param tabs the number of tabs
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the number is not positive
+         */
+        public Builder tabs(final int tabs) {
+            this.tabs = positive(tabs, "tabs");
+            return this;
+        }
+
+        /**
+         * Sets the number of advancements in each tab excluding the root, the default is {@code 1000}.
+         *
+         * @param advancements the number of advancements per tab
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the number is negative
+         */
+        public Builder advancements(final int advancements) {
+            if (advancements < 0) throw new IllegalArgumentException("The number of advancements must not be negative");
+            this.advancements = advancements;
+            return this;
+        }
+
+        /**
+         * Sets the number of children of each advancement in the tree of a tab, the default is {@code 4}.
+         *
+         * @param branching the number of children of each advancement
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the number is not positive
+         */
+        public Builder branching(final int branching) {
+            this.branching = positive(branching, "children");
+            return this;
+        }
+
+        /**
+         * Sets the number of simulated players, the default is {@code 200}.
+         *
+         * @param players the number of players
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the number is not positive
+         */
+        public Builder players(final int players) {
+            this.players = positive(players, "players");
+            return this;
+        }
+
+        /**
+         * Sets the number of ticks run before the measurement starts, the default is {@code 200}.
+         *
+         * @param warmupTicks the number of warmup ticks
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the number is negative
+         */
+        public Builder warmupTicks(final int warmupTicks) {
+            if (warmupTicks < 0) throw new IllegalArgumentException("The number of warmup ticks must not be negative");
+            this.warmupTicks = warmupTicks;
+            return this;
+        }
+
+        /**
+         * Sets the number of measured ticks, the default is {@code 1200}.
+         *
+         * @param ticks the number of measured ticks
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the number is not positive
+         */
+        public Builder ticks(final int ticks) {
+            this.ticks = positive(ticks, "ticks");
+            return this;
+        }
+
+        /**
+         * Sets the number of events called each tick, the default is {@code 50}.
+         *
+         * @param eventsPerTick the number of events per tick
+         * @return this builder instance for chaining
+         * @throws IllegalArgumentException if the number is negative
+         */
+        public Builder eventsPerTick(final int eventsPerTick) {
+            if (eventsPerTick < 0) throw new IllegalArgumentException("The number of events per tick must not be negative");
+            this.eventsPerTick = eventsPerTick;
+            return this;
+        }
+
+        /**
+         * Sets the seed choosing the events of the stream, the default is {@code 0}.
+         *
+         * @param seed the seed
+         * @return this builder instance for chaining
+         */
+        public Builder seed(final long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets how the advancements of the tabs are configured.
+         * <p>
+         * The consumer receives the index of the advancement in its tab (starting at {@code 1})
+         * and its builder with the key already set. The default gives each advancement a counter
+         * incremented by each {@link BlockBreakEvent}.
+         * </p>
+         *
+         * @param node the consumer configuring each advancement
+         * @return this builder instance for chaining
+         */
+        public Builder node(final BiConsumer<Integer, CustomAdvancement.Builder> node) {
+            this.node = node;
+            return this;
+        }
+
+        /**
+         * Adds a source of events to the stream.
+         * <p>
+         * The function is called once for each player, the created events are then called repeatedly.
+         * If no source is added, the stream consists of {@link BlockBreakEvent}s.
+         * </p>
+         *
+         * @param source the function creating an event of a player
+         * @return this builder instance for chaining
+         */
+        public Builder event(final Function<? super Player, ? extends Event> source) {
+            sources.add(source);
+            return this;
+        }
+
+        /**
+         * Runs the simulation.
+         * <p>
+         * Starts a new mocked server and stops it when the simulation ends.
+         * </p>
+         *
+         * @return the report of the simulation
+         * @throws IllegalStateException if a simulation has already run in this JVM
+         */
+        public LoadReport run() {
+            return new LoadSimulation(this).run();
+        }
+
+        private static int positive(final int value, final String name) {
+            if (value <= 0) throw new IllegalArgumentException("The number of " + name + " must be positive");
+            return value;
+        }
+    }
+}
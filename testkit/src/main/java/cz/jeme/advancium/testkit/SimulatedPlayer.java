@@ -0,0 +1,80 @@
+package cz.jeme.advancium.testkit;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.advancement.Advancement;
+import org.bukkit.advancement.AdvancementProgress;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A {@link PlayerMock} tracking its progress of the advancements loaded to a {@link SimulationServer}.
+ * <p>
+ * Awarding a criterion calls the {@link com.destroystokyo.paper.event.player.PlayerAdvancementCriterionGrantEvent}
+ * like the server does, the criterion is revoked again if the event is cancelled.
+ * </p>
+ */
+public class SimulatedPlayer extends PlayerMock {
+    private final SimulationServer server;
+    private final Map<NamespacedKey, SimulatedProgress> progress = new HashMap<>();
+    // the progress written to disk by the last save, keyed by the advancement
+    private final Map<NamespacedKey, Set<String>> saved = new HashMap<>();
+    private int progressLookups = 0;
+
+    /**
+     * Creates a new simulated player, use {@link SimulationServer#addSimulatedPlayer(String)} to also add it to the server.
+     *
+     * @param server the server of the player
+     * @param name   the name of the player
+     * @param uuid   the unique id of the player
+     */
+    public SimulatedPlayer(final SimulationServer server, final String name, final UUID uuid) {
+        super(server, name, uuid);
+        this.server = server;
+    }
+
+    @Override
+    public AdvancementProgress getAdvancementProgress(final Advancement advancement) {
+        progressLookups++;
+        final NamespacedKey key = advancement.getKey();
+        final SimulationServer.Definition definition = Objects.requireNonNull(
+                server.definition(key),
+                "Advancement \"" + key + "\" is not loaded"
+        );
+        final SimulatedProgress current = progress.get(key);
+        // progress of a removed advancement is not kept when it is loaded again
+        if (current != null && current.definition() == definition) return current;
+        final SimulatedProgress created = new SimulatedProgress(this, definition);
+        created.restore(saved.getOrDefault(key, Set.of()));
+        progress.put(key, created);
+        return created;
+    }
+
+    /**
+     * Gets how many times the progress of any advancement has been requested from this player.
+     *
+     * @return the number of calls to {@link #getAdvancementProgress(Advancement)}
+     */
+    public int progressLookups() {
+        return progressLookups;
+    }
+
+    /**
+     * Saves the progress of this player like the server does when it stops.
+     * <p>
+     * Only the progress of the advancements currently loaded is saved, the progress of removed advancements is lost.
+     * </p>
+     */
+    void save() {
+        saved.clear();
+        progress.forEach((key, current) -> {
+            if (server.definition(key) == current.definition())
+                saved.put(key, Set.copyOf(current.getAwardedCriteria()));
+        });
+        progress.clear();
+    }
+}
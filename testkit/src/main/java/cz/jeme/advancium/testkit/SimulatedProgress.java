@@ -0,0 +1,81 @@
+package cz.jeme.advancium.testkit;
+
+import com.destroystokyo.paper.event.player.PlayerAdvancementCriterionGrantEvent;
+import org.bukkit.advancement.Advancement;
+import org.bukkit.advancement.AdvancementProgress;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * The progress of a {@link SimulatedPlayer} of a single advancement.
+ */
+final class SimulatedProgress implements AdvancementProgress {
+    private final SimulatedPlayer player;
+    private final SimulationServer.Definition definition;
+    private final Map<String, Date> awarded = new HashMap<>();
+
+    SimulatedProgress(final SimulatedPlayer player, final SimulationServer.Definition definition) {
+        this.player = player;
+        this.definition = definition;
+    }
+
+    public SimulationServer.Definition definition() {
+        return definition;
+    }
+
+    /**
+     * Awards the saved criteria without calling any events, like the server does when loading the progress.
+     */
+    void restore(final Collection<String> criteria) {
+        final Date date = new Date();
+        for (final String criterion : criteria)
+            if (definition.criteria().contains(criterion)) awarded.put(criterion, date);
+    }
+
+    @Override
+    public Advancement getAdvancement() {
+        return definition.bukkit();
+    }
+
+    @Override
+    public boolean isDone() {
+        for (final List<String> group : definition.requirements())
+            if (group.stream().noneMatch(awarded::containsKey)) return false;
+        return true;
+    }
+
+    @Override
+    public boolean awardCriteria(final String criteria) {
+        if (!definition.criteria().contains(criteria) || awarded.containsKey(criteria)) return false;
+        awarded.put(criteria, new Date());
+        // the server calls the event once the criterion is awarded
+        if (!new PlayerAdvancementCriterionGrantEvent(player, definition.bukkit(), criteria, this).callEvent()) {
+            awarded.remove(criteria);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean revokeCriteria(final String criteria) {
+        return awarded.remove(criteria) != null;
+    }
+
+    @Override
+    public @Nullable Date getDateAwarded(final String criteria) {
+        return awarded.get(criteria);
+    }
+
+    @Override
+    public Collection<String> getRemainingCriteria() {
+        return definition.criteria().stream()
+                .filter(criterion -> !awarded.containsKey(criterion))
+                .toList();
+    }
+
+    @Override
+    public Collection<String> getAwardedCriteria() {
+        return List.copyOf(awarded.keySet());
+    }
+}
@@ -0,0 +1,180 @@
+package cz.jeme.advancium.testkit;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.bukkit.NamespacedKey;
+import org.bukkit.UnsafeValues;
+import org.bukkit.advancement.Advancement;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+import org.mockbukkit.mockbukkit.ServerMock;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link ServerMock} able to load the advancements of the library.
+ * <p>
+ * Loaded advancements only keep their key, criteria and requirements, which is all the library
+ * needs to grant them. Their progress is tracked by {@link SimulatedPlayer}s.
+ * </p>
+ * Example:
+ * <pre>{@code
+ * SimulationServer server = MockBukkit.mock(new SimulationServer());
+ * SimulatedPlayer player = server.addSimulatedPlayer("Steve");
+ * }</pre>
+ */
+public class SimulationServer extends ServerMock {
+    private final Map<NamespacedKey, Definition> advancements = new ConcurrentHashMap<>();
+    private @Nullable UnsafeValues unsafe;
+    private volatile boolean stopping = false;
+
+    /**
+     * A loaded advancement.
+     *
+     * @param bukkit       the Bukkit representation of the advancement
+     * @param criteria     the criteria of the advancement
+     * @param requirements the requirement groups of the advancement
+     */
+    record Definition(Advancement bukkit, Set<String> criteria, List<List<String>> requirements) {
+    }
+
+    /**
+     * Creates a new player, adds it to the server and calls the join event.
+     *
+     * @param name the name of the player
+     * @return the added player
+     */
+    public SimulatedPlayer addSimulatedPlayer(final String name) {
+        return addSimulatedPlayer(name, UUID.randomUUID());
+    }
+
+    /**
+     * Creates a new player with the provided unique id, adds it to the server and calls the join event.
+     *
+     * @param name the name of the player
+     * @param uuid the unique id of the player
+     * @return the added player
+     */
+    public SimulatedPlayer addSimulatedPlayer(final String name, final UUID uuid) {
+        final SimulatedPlayer player = new SimulatedPlayer(this, name, uuid);
+        addPlayer(player);
+        return player;
+    }
+
+    /**
+     * Restarts this server the way a real server stops and starts.
+     * <p>
+     * The enabled plugins are disabled while {@link #isStopping()} returns {@code true}, then the players
+     * save their progress of the advancements still loaded, all advancements are dropped
+     * and the plugins are enabled again. The saved progress is restored once the advancements are loaded again.
+     * The players stay online.
+     * </p>
+     */
+    public void restart() {
+        final List<Plugin> plugins = Arrays.stream(getPluginManager().getPlugins())
+                .filter(Plugin::isEnabled)
+                .toList();
+        stopping = true;
+        try {
+            getPluginManager().disablePlugins();
+            for (final Player player : getOnlinePlayers())
+                if (player instanceof final SimulatedPlayer simulated) simulated.save();
+            advancements.clear();
+        } finally {
+            stopping = false;
+        }
+        plugins.forEach(getPluginManager()::enablePlugin);
+    }
+
+    @Override
+    public boolean isStopping() {
+        return stopping;
+    }
+
+    /**
+     * Gets the number of advancements loaded to this server.
+     *
+     * @return the number of loaded advancements
+     */
+    public int advancementCount() {
+        return advancements.size();
+    }
+
+    @Override
+    public @Nullable Advancement getAdvancement(final NamespacedKey key) {
+        final Definition definition = advancements.get(key);
+        return definition == null ? null : definition.bukkit();
+    }
+
+    @Nullable
+    Definition definition(final NamespacedKey key) {
+        return advancements.get(key);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public synchronized UnsafeValues getUnsafe() {
+        if (unsafe != null) return unsafe;
+        final UnsafeValues delegate = super.getUnsafe();
+        unsafe = (UnsafeValues) Proxy.newProxyInstance(
+                SimulationServer.class.getClassLoader(),
+                new Class<?>[]{UnsafeValues.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "loadAdvancement" -> loadAdvancement((NamespacedKey) args[0], (String) args[1]);
+                    case "removeAdvancement" -> advancements.remove((NamespacedKey) args[0]) != null;
+                    case "serializeItemAsJson" -> serializeItem((ItemStack) args[0]);
+                    default -> {
+                        try {
+                            yield method.invoke(delegate, args);
+                        } catch (final InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                }
+        );
+        return unsafe;
+    }
+
+    private Advancement loadAdvancement(final NamespacedKey key, final String json) {
+        if (advancements.containsKey(key))
+            throw new IllegalArgumentException("Advancement \"" + key + "\" is already loaded");
+        final JsonObject root = JsonParser.parseString(json).getAsJsonObject();
+        final Set<String> criteria = Set.copyOf(root.getAsJsonObject("criteria").keySet());
+        final List<List<String>> requirements = new ArrayList<>();
+        for (final JsonElement group : root.getAsJsonArray("requirements")) {
+            final List<String> criteriaGroup = new ArrayList<>();
+            for (final JsonElement criterion : group.getAsJsonArray())
+                criteriaGroup.add(criterion.getAsString());
+            requirements.add(List.copyOf(criteriaGroup));
+        }
+        final Advancement bukkit = (Advancement) Proxy.newProxyInstance(
+                SimulationServer.class.getClassLoader(),
+                new Class<?>[]{Advancement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getKey", "key" -> key;
+                    case "getCriteria" -> criteria;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> key.hashCode();
+                    case "toString" -> "SimulatedAdvancement{" + key + "}";
+                    default -> throw new UnsupportedOperationException(
+                            "Simulated advancements do not support " + method.getName()
+                    );
+                }
+        );
+        advancements.put(key, new Definition(bukkit, criteria, List.copyOf(requirements)));
+        return bukkit;
+    }
+
+    private static JsonObject serializeItem(final ItemStack item) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("id", item.getType().getKey().asString());
+        json.addProperty("count", item.getAmount());
+        return json;
+    }
+}